@@ -0,0 +1,180 @@
+/**
+ * Represents a percolation system backed by a single union-find. Instead of a second union-find
+ * with a virtual-bottom node, every root carries a bit telling whether its component contains an
+ * open site of the last row, so there is no backwash and each open does its unions only once.
+ */
+public class CompactPercolation implements PercolationSystem {
+
+  private static final int VIRTUAL_TOP = 0;
+
+  // bits of the state of a site
+  private static final int OPEN = 1;
+  private static final int CONNECTED_TO_BOTTOM = 2;
+  private static final int RANK_SHIFT = 2;
+
+  private final int dimension;
+
+  // parent[i] = parent of site i in the union-find, site 0 is the virtual-top node
+  private final int[] parent;
+
+  // open bit, connected-to-bottom bit (only maintained for roots) and rank of each site
+  private final byte[] state;
+
+  private boolean percolates;
+
+  /**
+   * Creates an N-by-N grid, with all sites blocked (N = dimension)
+   * 
+   * @param dimension the dimension of the grid
+   */
+  public CompactPercolation(final int dimension) {
+    this.dimension = PercolationSystem.checkDimension(dimension);
+
+    final int sitesCount = dimension * dimension + 1; // add the virtual-top node
+    this.parent = new int[sitesCount];
+    this.state = new byte[sitesCount];
+
+    for (int i = 0; i < sitesCount; i++) {
+      parent[i] = i;
+    }
+  }
+
+  @Override
+  public void open(final int row, final int column) {
+    checkIndices(row, column);
+    openSite((row - 1) * dimension + column - 1);
+  }
+
+  @Override
+  public void openSite(final int siteId) {
+    if (siteId < 0 || siteId >= dimension * dimension) {
+      throw new IndexOutOfBoundsException(
+          String.format("Site id must be between 0 and %s", dimension * dimension - 1));
+    }
+
+    final int sideId = siteId + 1;
+    if (isOpen(sideId)) {
+      return;
+    }
+
+    state[sideId] |= OPEN;
+
+    // sites of the last row are connected to the bottom by themselves
+    if (siteId >= dimension * (dimension - 1)) {
+      state[sideId] |= CONNECTED_TO_BOTTOM;
+    }
+
+    // sites of the first row are connected to the top
+    if (siteId < dimension) {
+      union(sideId, VIRTUAL_TOP);
+    }
+
+    final int column = siteId % dimension;
+
+    // left
+    if (column > 0) {
+      unionIfOpen(sideId, sideId - 1);
+    }
+
+    // right
+    if (column < dimension - 1) {
+      unionIfOpen(sideId, sideId + 1);
+    }
+
+    // top
+    if (siteId >= dimension) {
+      unionIfOpen(sideId, sideId - dimension);
+    }
+
+    // bottom
+    if (siteId < dimension * (dimension - 1)) {
+      unionIfOpen(sideId, sideId + dimension);
+    }
+
+    // the system percolates once the component of the top reaches the bottom
+    if (!percolates) {
+      final int root = find(VIRTUAL_TOP);
+      percolates = (state[root] & CONNECTED_TO_BOTTOM) != 0;
+    }
+  }
+
+  @Override
+  public boolean isOpen(final int row, final int column) {
+    checkIndices(row, column);
+    return isOpen((row - 1) * dimension + column);
+  }
+
+  @Override
+  public boolean isFull(final int row, final int column) {
+    checkIndices(row, column);
+
+    final int sideId = (row - 1) * dimension + column;
+    return isOpen(sideId) && find(sideId) == find(VIRTUAL_TOP);
+  }
+
+  @Override
+  public boolean percolates() {
+    return percolates;
+  }
+
+  private boolean isOpen(final int sideId) {
+    return (state[sideId] & OPEN) != 0;
+  }
+
+  private void checkIndices(final int row, final int column) {
+    checkIndex(row);
+    checkIndex(column);
+  }
+
+  private void checkIndex(final int index) {
+    if (index < 1 || index > dimension) {
+      throw new IndexOutOfBoundsException(
+          String.format("Index must be between 1 and %s", dimension));
+    }
+  }
+
+  private void unionIfOpen(final int sideId, final int neighbourSideId) {
+    if (isOpen(neighbourSideId)) {
+      union(sideId, neighbourSideId);
+    }
+  }
+
+  // finds the root with path halving
+  private int find(final int sideId) {
+    int current = sideId;
+    while (parent[current] != current) {
+      parent[current] = parent[parent[current]];
+      current = parent[current];
+    }
+    return current;
+  }
+
+  // union by rank, the new root inherits the connected-to-bottom bit of both roots
+  private void union(final int sideId, final int site2Id) {
+    final int root = find(sideId);
+    final int root2 = find(site2Id);
+    if (root == root2) {
+      return;
+    }
+
+    final int rank = rank(root);
+    final int rank2 = rank(root2);
+    final int bottom = (state[root] | state[root2]) & CONNECTED_TO_BOTTOM;
+
+    if (rank < rank2) {
+      parent[root] = root2;
+      state[root2] |= bottom;
+    } else {
+      parent[root2] = root;
+      state[root] |= bottom;
+      if (rank == rank2) {
+        state[root] += 1 << RANK_SHIFT;
+      }
+    }
+  }
+
+  private int rank(final int sideId) {
+    return (state[sideId] & 0xFF) >>> RANK_SHIFT;
+  }
+
+}
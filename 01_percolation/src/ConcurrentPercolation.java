@@ -0,0 +1,160 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Represents a percolation system whose sites can be opened by any number of threads at once.
+ * <p>
+ * A site is opened by setting its bit with compare-and-set, and the thread which set it connects
+ * the site with its open neighbours in two {@link ConcurrentUnionFind}s: one with a virtual top
+ * node, telling which sites are full, and one with virtual top and bottom nodes, telling whether
+ * the system percolates (the bottom node would make sites connected to the bottom look full).
+ * Two neighbours opened concurrently are connected by at least one of the threads, as each
+ * thread sets its own bit before reading the other one.
+ */
+public class ConcurrentPercolation implements PercolationSystem {
+
+  private final int dimension;
+  private final int virtualTop;
+  private final int virtualBottom;
+
+  // bit i is set iff site i (0-based) is open
+  private final AtomicLongArray openSites;
+  private final AtomicInteger openSitesCount = new AtomicInteger();
+
+  private final ConcurrentUnionFind unionFindWithTopVirtualNode;
+  private final ConcurrentUnionFind unionFindWithTopBottomVirtualNodes;
+
+  /**
+   * Creates an N-by-N grid, with all sites blocked (N = dimension)
+   * 
+   * @param dimension the dimension of the grid
+   */
+  public ConcurrentPercolation(final int dimension) {
+    this.dimension = PercolationSystem.checkDimension(dimension);
+    this.virtualTop = dimension * dimension;
+    this.virtualBottom = virtualTop + 1;
+
+    this.openSites = new AtomicLongArray((dimension * dimension + Long.SIZE - 1) / Long.SIZE);
+    this.unionFindWithTopVirtualNode = new ConcurrentUnionFind(virtualTop + 1);
+    this.unionFindWithTopBottomVirtualNodes = new ConcurrentUnionFind(virtualBottom + 1);
+  }
+
+  /**
+   * Opens site (row i, column j) if it is not open already. Safe to call from any thread.
+   * 
+   * @param row
+   * @param column
+   */
+  @Override
+  public void open(final int row, final int column) {
+    checkIndices(row, column);
+    openSite((row - 1) * dimension + column - 1);
+  }
+
+  /**
+   * Opens the site with the given id if it is not open already. Safe to call from any thread.
+   * 
+   * @param siteId the id of the site
+   */
+  @Override
+  public void openSite(final int siteId) {
+    if (siteId < 0 || siteId >= dimension * dimension) {
+      throw new IndexOutOfBoundsException(
+          String.format("Site id must be between 0 and %s", dimension * dimension - 1));
+    }
+
+    // only the thread which opens the site connects it
+    if (!setOpen(siteId)) {
+      return;
+    }
+    openSitesCount.incrementAndGet();
+
+    final int column = siteId % dimension;
+
+    // left
+    if (column > 0) {
+      unionIfOpen(siteId, siteId - 1);
+    }
+
+    // right
+    if (column < dimension - 1) {
+      unionIfOpen(siteId, siteId + 1);
+    }
+
+    // top
+    if (siteId >= dimension) {
+      unionIfOpen(siteId, siteId - dimension);
+    } else {
+      unionFindWithTopVirtualNode.union(siteId, virtualTop);
+      unionFindWithTopBottomVirtualNodes.union(siteId, virtualTop);
+    }
+
+    // bottom
+    if (siteId < dimension * (dimension - 1)) {
+      unionIfOpen(siteId, siteId + dimension);
+    } else {
+      unionFindWithTopBottomVirtualNodes.union(siteId, virtualBottom);
+    }
+  }
+
+  @Override
+  public boolean isOpen(final int row, final int column) {
+    checkIndices(row, column);
+    return isOpenSite((row - 1) * dimension + column - 1);
+  }
+
+  @Override
+  public boolean isFull(final int row, final int column) {
+    checkIndices(row, column);
+    return unionFindWithTopVirtualNode.connected((row - 1) * dimension + column - 1, virtualTop);
+  }
+
+  @Override
+  public boolean percolates() {
+    return unionFindWithTopBottomVirtualNodes.connected(virtualTop, virtualBottom);
+  }
+
+  /**
+   * Returns the number of open sites.
+   * 
+   * @return the number of open sites
+   */
+  public int numberOfOpenSites() {
+    return openSitesCount.get();
+  }
+
+  private void checkIndices(final int row, final int column) {
+    if (row < 1 || row > dimension || column < 1 || column > dimension) {
+      throw new IndexOutOfBoundsException(
+          String.format("Index must be between 1 and %s", dimension));
+    }
+  }
+
+  private boolean isOpenSite(final int siteId) {
+    return (openSites.get(siteId / Long.SIZE) & 1L << siteId) != 0;
+  }
+
+  // returns false if the site was open already
+  private boolean setOpen(final int siteId) {
+    final int word = siteId / Long.SIZE;
+    final long bit = 1L << siteId;
+
+    while (true) {
+      final long bits = openSites.get(word);
+      if ((bits & bit) != 0) {
+        return false;
+      }
+      if (openSites.compareAndSet(word, bits, bits | bit)) {
+        return true;
+      }
+    }
+  }
+
+  private void unionIfOpen(final int siteId, final int neighbourId) {
+    if (isOpenSite(neighbourId)) {
+      unionFindWithTopVirtualNode.union(siteId, neighbourId);
+      unionFindWithTopBottomVirtualNodes.union(siteId, neighbourId);
+    }
+  }
+
+}
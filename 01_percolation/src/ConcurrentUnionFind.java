@@ -0,0 +1,153 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Union-find data structure that any number of threads can update and query at once, without
+ * locks (Jayanti and Tarjan). Parents are changed by compare-and-set only: finds split the paths
+ * they walk, and unions link a root under the other one, retrying if it stopped being a root
+ * meanwhile.
+ * <p>
+ * Roots are linked by priority rather than by rank, so no rank has to be updated atomically with
+ * the parent: the priorities are a uniformly random permutation of the sites, drawn when the
+ * structure is created, and a root is linked under the root of higher priority. This is the
+ * randomized linking whose expected depth bounds Jayanti and Tarjan prove, whatever the ids of
+ * the sites, at the cost of an int per site. {@link #union(int, int)} and
+ * {@link #connected(int, int)} are linearizable.
+ */
+public class ConcurrentUnionFind {
+
+  private final AtomicIntegerArray parent;
+
+  // random permutation of the sites, only written before the structure is published
+  private final int[] priority;
+
+  /**
+   * Creates n singleton sets, numbered from 0 to n - 1, with fresh random priorities.
+   * 
+   * @param n the number of sites
+   */
+  public ConcurrentUnionFind(final int n) {
+    this(n, new SplittableRandom());
+  }
+
+  /**
+   * Creates n singleton sets, numbered from 0 to n - 1, with priorities drawn from the given seed,
+   * so that the shape of the trees can be replayed.
+   * 
+   * @param n the number of sites
+   * @param seed the seed of the priorities
+   */
+  public ConcurrentUnionFind(final int n, final long seed) {
+    this(n, new SplittableRandom(seed));
+  }
+
+  private ConcurrentUnionFind(final int n, final SplittableRandom random) {
+    if (n < 0) {
+      throw new IllegalArgumentException("Number of sites cannot be negative");
+    }
+
+    this.parent = new AtomicIntegerArray(n);
+    this.priority = new int[n];
+    for (int i = 0; i < n; i++) {
+      parent.set(i, i);
+
+      // inside-out Fisher-Yates shuffle
+      final int j = random.nextInt(i + 1);
+      priority[i] = priority[j];
+      priority[j] = i;
+    }
+  }
+
+  /**
+   * Returns the number of sites.
+   * 
+   * @return the number of sites
+   */
+  public int size() {
+    return parent.length();
+  }
+
+  /**
+   * Returns the root of the set containing the site, which may be outdated as soon as it is
+   * returned if other threads are merging sets.
+   * 
+   * @param site the site
+   * @return the root of its set
+   */
+  public int find(final int site) {
+    checkSite(site);
+
+    int current = site;
+    while (true) {
+      final int next = parent.get(current);
+      if (next == current) {
+        return current;
+      }
+
+      // path splitting: point the site to its grandparent, a failure means somebody else did
+      final int grandparent = parent.get(next);
+      if (grandparent != next) {
+        parent.compareAndSet(current, next, grandparent);
+      }
+      current = next;
+    }
+  }
+
+  /**
+   * Merges the sets containing the two sites.
+   * 
+   * @param site the first site
+   * @param site2 the second site
+   * @return true, iff the sets were different before
+   */
+  public boolean union(final int site, final int site2) {
+    while (true) {
+      int root = find(site);
+      int root2 = find(site2);
+      if (root == root2) {
+        return false;
+      }
+
+      if (priority[root] > priority[root2]) {
+        final int swap = root;
+        root = root2;
+        root2 = swap;
+      }
+
+      // fails if another union linked the lower root meanwhile
+      if (parent.compareAndSet(root, root, root2)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Checks whether the two sites are in the same set.
+   * 
+   * @param site the first site
+   * @param site2 the second site
+   * @return true, iff the sites are connected
+   */
+  public boolean connected(final int site, final int site2) {
+    while (true) {
+      final int root = find(site);
+      final int root2 = find(site2);
+      if (root == root2) {
+        return true;
+      }
+
+      // the sets were different while the first root was still a root
+      if (parent.get(root) == root) {
+        return false;
+      }
+    }
+  }
+
+  private void checkSite(final int site) {
+    if (site < 0 || site >= parent.length()) {
+      throw new IndexOutOfBoundsException(
+          String.format("Site must be between 0 and %s", parent.length() - 1));
+    }
+  }
+
+}
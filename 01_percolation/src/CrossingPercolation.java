@@ -0,0 +1,171 @@
+/**
+ * Represents a percolation system which tells both whether it percolates from top to bottom and
+ * whether it crosses from left to right, in a single union-find: every root carries a bit for each
+ * side of the grid its component touches.
+ */
+public class CrossingPercolation implements PercolationSystem {
+
+  // bits of the state of a site, sides only maintained for roots
+  private static final int OPEN = 1;
+  private static final int TOP = 2;
+  private static final int BOTTOM = 4;
+  private static final int LEFT = 8;
+  private static final int RIGHT = 16;
+
+  private final int dimension;
+
+  private final int[] parent;
+  private final byte[] rank;
+  private final byte[] state;
+
+  private boolean percolates;
+  private boolean crossesHorizontally;
+
+  /**
+   * Creates an N-by-N grid, with all sites blocked (N = dimension)
+   * 
+   * @param dimension the dimension of the grid
+   */
+  public CrossingPercolation(final int dimension) {
+    this.dimension = PercolationSystem.checkDimension(dimension);
+    this.parent = new int[dimension * dimension];
+    this.rank = new byte[dimension * dimension];
+    this.state = new byte[dimension * dimension];
+
+    for (int i = 0; i < parent.length; i++) {
+      parent[i] = i;
+    }
+  }
+
+  @Override
+  public void open(final int row, final int column) {
+    checkIndices(row, column);
+    openSite((row - 1) * dimension + column - 1);
+  }
+
+  @Override
+  public void openSite(final int siteId) {
+    if (siteId < 0 || siteId >= parent.length) {
+      throw new IndexOutOfBoundsException(
+          String.format("Site id must be between 0 and %s", parent.length - 1));
+    }
+
+    if ((state[siteId] & OPEN) != 0) {
+      return;
+    }
+
+    final int column = siteId % dimension;
+    int sides = OPEN;
+    if (siteId < dimension) {
+      sides |= TOP;
+    }
+    if (siteId >= parent.length - dimension) {
+      sides |= BOTTOM;
+    }
+    if (column == 0) {
+      sides |= LEFT;
+    }
+    if (column == dimension - 1) {
+      sides |= RIGHT;
+    }
+    state[siteId] = (byte) sides;
+
+    // left
+    if (column > 0) {
+      unionIfOpen(siteId, siteId - 1);
+    }
+
+    // right
+    if (column < dimension - 1) {
+      unionIfOpen(siteId, siteId + 1);
+    }
+
+    // top
+    if (siteId >= dimension) {
+      unionIfOpen(siteId, siteId - dimension);
+    }
+
+    // bottom
+    if (siteId < parent.length - dimension) {
+      unionIfOpen(siteId, siteId + dimension);
+    }
+
+    final int rootSides = state[find(siteId)];
+    percolates |= (rootSides & (TOP | BOTTOM)) == (TOP | BOTTOM);
+    crossesHorizontally |= (rootSides & (LEFT | RIGHT)) == (LEFT | RIGHT);
+  }
+
+  @Override
+  public boolean isOpen(final int row, final int column) {
+    checkIndices(row, column);
+    return (state[(row - 1) * dimension + column - 1] & OPEN) != 0;
+  }
+
+  @Override
+  public boolean isFull(final int row, final int column) {
+    checkIndices(row, column);
+    final int siteId = (row - 1) * dimension + column - 1;
+    return (state[siteId] & OPEN) != 0 && (state[find(siteId)] & TOP) != 0;
+  }
+
+  /**
+   * Indicates whether the system percolates, i.e. an open component connects the top row to the
+   * bottom row.
+   * 
+   * @return true, iff the system percolates
+   */
+  @Override
+  public boolean percolates() {
+    return percolates;
+  }
+
+  /**
+   * Indicates whether an open component connects the left column to the right column.
+   * 
+   * @return true, iff the system crosses horizontally
+   */
+  public boolean crossesHorizontally() {
+    return crossesHorizontally;
+  }
+
+  private void checkIndices(final int row, final int column) {
+    if (row < 1 || row > dimension || column < 1 || column > dimension) {
+      throw new IndexOutOfBoundsException(
+          String.format("Index must be between 1 and %s", dimension));
+    }
+  }
+
+  // path halving
+  private int find(int siteId) {
+    while (parent[siteId] != siteId) {
+      parent[siteId] = parent[parent[siteId]];
+      siteId = parent[siteId];
+    }
+    return siteId;
+  }
+
+  // union by rank, the sides of the merged component are kept at its root
+  private void unionIfOpen(final int siteId, final int neighbourId) {
+    if ((state[neighbourId] & OPEN) == 0) {
+      return;
+    }
+
+    int root = find(siteId);
+    int child = find(neighbourId);
+    if (root == child) {
+      return;
+    }
+
+    if (rank[root] < rank[child]) {
+      final int swap = root;
+      root = child;
+      child = swap;
+    } else if (rank[root] == rank[child]) {
+      ++rank[root];
+    }
+
+    parent[child] = root;
+    state[root] |= state[child];
+  }
+
+}
@@ -0,0 +1,347 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * An undirected graph in compressed sparse row (CSR) form, read from a binary file mapped into
+ * memory, on which a {@link GraphPercolation} opens nodes. The file is mapped in windows, so it
+ * may be larger than the 2 GB a single mapping can hold. Some nodes are sources and some are
+ * sinks, the graph percolates when an open path connects a source to a sink.
+ * <p>
+ * The file starts with a header (magic number, format version, number of nodes, number of
+ * adjacency entries, number of sources and number of sinks), followed by the sources, the sinks,
+ * the N + 1 offsets and the adjacency entries, all as little-endian ints: the neighbours of node v
+ * are the entries offsets[v] to offsets[v + 1] - 1, and every edge is stored in both directions.
+ * Files are converted from a text format: the number of nodes, the number of sources followed by
+ * their ids, the number of sinks followed by their ids, then one pair of node ids per edge.
+ */
+public class CsrGraph {
+
+  // "PCSR"
+  private static final int MAGIC = 0x50435352;
+  private static final int VERSION = 1;
+
+  // magic number, version and the four counts
+  private static final int HEADER_SIZE = 24;
+
+  // number of ints written at once
+  private static final int BUFFER_INTS = 1 << 16;
+
+  // the file is mapped in windows of 2^WINDOW_SHIFT ints (256 MB), no int straddles two windows
+  private static final int WINDOW_SHIFT = 26;
+  private static final int WINDOW_MASK = (1 << WINDOW_SHIFT) - 1;
+
+  // bits of the role of a node
+  private static final byte SOURCE = 1;
+  private static final byte SINK = 2;
+
+  private final int nodeCount;
+  private final IntBuffer[] windows;
+  private final byte[] roles;
+
+  // positions of the first offset and of the first adjacency entry in the file, in ints
+  private final long offsetsStart;
+  private final long targetsStart;
+
+  private CsrGraph(final int nodeCount, final IntBuffer[] windows, final long offsetsStart,
+      final long targetsStart, final byte[] roles) {
+    this.nodeCount = nodeCount;
+    this.windows = windows;
+    this.offsetsStart = offsetsStart;
+    this.targetsStart = targetsStart;
+    this.roles = roles;
+  }
+
+  /**
+   * Maps a graph file into memory. Every offset and node id of the file is checked once, so the
+   * graph can be traversed without further checks.
+   * 
+   * @param file the file
+   * @return the graph
+   * @throws IOException if the file cannot be read, or is not a valid graph file
+   */
+  public static CsrGraph open(final Path file) throws IOException {
+    final IntBuffer[] windows;
+    final long size;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      size = channel.size();
+      if (size < HEADER_SIZE || size % 4 != 0) {
+        throw new IOException(file + " is not a graph file");
+      }
+
+      // the mappings stay valid once the channel is closed
+      final long windowBytes = 4L << WINDOW_SHIFT;
+      windows = new IntBuffer[(int) ((size + windowBytes - 1) / windowBytes)];
+      for (int w = 0; w < windows.length; w++) {
+        final long start = w * windowBytes;
+        windows[w] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+            Math.min(windowBytes, size - start)).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+      }
+    }
+
+    if (windows[0].get(0) != MAGIC) {
+      throw new IOException(file + " is not a graph file");
+    }
+    if (windows[0].get(1) != VERSION) {
+      throw new IOException(
+          String.format("%s has unsupported format version %s", file, windows[0].get(1)));
+    }
+
+    final int nodeCount = windows[0].get(2);
+    final int entryCount = windows[0].get(3);
+    final int sourceCount = windows[0].get(4);
+    final int sinkCount = windows[0].get(5);
+    final long expectedSize = HEADER_SIZE
+        + 4L * ((long) sourceCount + sinkCount + nodeCount + 1 + entryCount);
+    if (nodeCount <= 0 || entryCount < 0 || sourceCount <= 0 || sinkCount <= 0
+        || expectedSize != size) {
+      throw new IOException(file + " is corrupt");
+    }
+
+    final byte[] roles = new byte[nodeCount];
+    final long sourcesStart = HEADER_SIZE / 4;
+    final long sinksStart = sourcesStart + sourceCount;
+    final long offsetsStart = sinksStart + sinkCount;
+    final CsrGraph graph = new CsrGraph(nodeCount, windows, offsetsStart,
+        offsetsStart + nodeCount + 1, roles);
+    graph.readRoles(sourcesStart, sourceCount, SOURCE, file);
+    graph.readRoles(sinksStart, sinkCount, SINK, file);
+
+    if (graph.offset(0) != 0 || graph.offset(nodeCount) != entryCount) {
+      throw new IOException(file + " has corrupt offsets");
+    }
+    for (int node = 0; node < nodeCount; node++) {
+      if (graph.offset(node) > graph.offset(node + 1)) {
+        throw new IOException(file + " has corrupt offsets");
+      }
+    }
+    for (int entry = 0; entry < entryCount; entry++) {
+      final int target = graph.target(entry);
+      if (target < 0 || target >= nodeCount) {
+        throw new IOException(String.format("%s has an edge to node %s", file, target));
+      }
+    }
+
+    return graph;
+  }
+
+  /**
+   * Writes a graph file.
+   * 
+   * @param file the file, replaced if it exists
+   * @param nodeCount the number of nodes
+   * @param offsets the N + 1 offsets of the adjacency lists of the nodes
+   * @param targets the adjacency entries, every edge in both directions
+   * @param sources the ids of the sources
+   * @param sinks the ids of the sinks
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(final Path file, final int nodeCount, final int[] offsets,
+      final int[] targets, final int[] sources, final int[] sinks) throws IOException {
+    if (nodeCount <= 0) {
+      throw new IllegalArgumentException("Number of nodes must be positive");
+    }
+    if (sources.length == 0 || sinks.length == 0) {
+      throw new IllegalArgumentException("There must be at least one source and one sink");
+    }
+    if (offsets.length != nodeCount + 1 || offsets[0] != 0
+        || offsets[nodeCount] != targets.length) {
+      throw new IllegalArgumentException(
+          "Offsets must run from 0 to the number of entries, one per node and one more");
+    }
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      final ByteBuffer buffer =
+          ByteBuffer.allocate(BUFFER_INTS * 4).order(ByteOrder.LITTLE_ENDIAN);
+      buffer.putInt(MAGIC).putInt(VERSION).putInt(nodeCount).putInt(targets.length)
+          .putInt(sources.length).putInt(sinks.length);
+      writeInts(channel, buffer, sources, sources.length);
+      writeInts(channel, buffer, sinks, sinks.length);
+      writeInts(channel, buffer, offsets, offsets.length);
+      writeInts(channel, buffer, targets, targets.length);
+      flush(channel, buffer);
+    }
+  }
+
+  /**
+   * Converts a text file of a graph (number of nodes, sources, sinks, then the edges) to a graph
+   * file.
+   * 
+   * @param text the text file
+   * @param file the graph file, replaced if it exists
+   * @throws IOException if a file cannot be read or written, or the text file is malformed
+   */
+  public static void convert(final Path text, final Path file) throws IOException {
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(text))) {
+      final IntParser parser = new IntParser(in, text);
+      final int nodeCount = parser.next();
+      if (nodeCount <= 0) {
+        throw new IOException(text + ": number of nodes must be positive");
+      }
+      final int[] sources = readNodes(parser, nodeCount, text);
+      final int[] sinks = readNodes(parser, nodeCount, text);
+
+      // edge i joins ends[2i] and ends[2i + 1]
+      int[] ends = new int[BUFFER_INTS];
+      int endCount = 0;
+      final int[] degrees = new int[nodeCount];
+      while (parser.hasNext()) {
+        if (endCount == ends.length) {
+          ends = Arrays.copyOf(ends, 2 * ends.length);
+        }
+        final int node = readNode(parser, nodeCount, text);
+        ends[endCount++] = node;
+        ++degrees[node];
+      }
+      if (endCount % 2 != 0) {
+        throw new IOException(text + ": the second end of the last edge is missing");
+      }
+
+      final int[] offsets = new int[nodeCount + 1];
+      for (int node = 0; node < nodeCount; node++) {
+        offsets[node + 1] = offsets[node] + degrees[node];
+      }
+
+      // degrees count down while the entries are filled
+      final int[] targets = new int[endCount];
+      for (int i = 0; i < endCount; i += 2) {
+        final int from = ends[i];
+        final int to = ends[i + 1];
+        targets[offsets[from + 1] - degrees[from]--] = to;
+        targets[offsets[to + 1] - degrees[to]--] = from;
+      }
+
+      write(file, nodeCount, offsets, targets, sources, sinks);
+    }
+  }
+
+  /**
+   * Returns the number of nodes.
+   * 
+   * @return the number of nodes
+   */
+  public int nodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Returns the index of the first adjacency entry of a node; its entries end where those of the
+   * next node start.
+   * 
+   * @param node the id of the node, or the number of nodes for the end of the last node
+   * @return the index of its first adjacency entry
+   */
+  public int offset(final int node) {
+    return intAt(offsetsStart + node);
+  }
+
+  /**
+   * Returns the node an adjacency entry leads to.
+   * 
+   * @param entry the index of the entry
+   * @return the id of the neighbour
+   */
+  public int target(final int entry) {
+    return intAt(targetsStart + entry);
+  }
+
+  /**
+   * Indicates whether a node is a source.
+   * 
+   * @param node the id of the node
+   * @return true, iff the node is a source
+   */
+  public boolean isSource(final int node) {
+    return (roles[node] & SOURCE) != 0;
+  }
+
+  /**
+   * Indicates whether a node is a sink.
+   * 
+   * @param node the id of the node
+   * @return true, iff the node is a sink
+   */
+  public boolean isSink(final int node) {
+    return (roles[node] & SINK) != 0;
+  }
+
+  // usage: graph.txt graph.csr
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      throw new IllegalArgumentException("Wrong number of command line arguments");
+    }
+    convert(Paths.get(args[0]), Paths.get(args[1]));
+  }
+
+  // the int at the given position of the file
+  private int intAt(final long position) {
+    return windows[(int) (position >>> WINDOW_SHIFT)].get((int) position & WINDOW_MASK);
+  }
+
+  private void readRoles(final long start, final int count, final byte role, final Path file)
+      throws IOException {
+    for (long i = start; i < start + count; i++) {
+      final int node = intAt(i);
+      if (node < 0 || node >= nodeCount) {
+        throw new IOException(String.format("%s has a source or sink %s", file, node));
+      }
+      roles[node] |= role;
+    }
+  }
+
+  // a count, followed by as many node ids
+  private static int[] readNodes(final IntParser parser, final int nodeCount, final Path text)
+      throws IOException {
+    final int count = parser.next();
+    if (count <= 0 || count > nodeCount) {
+      throw new IOException(
+          String.format("%s: there must be between 1 and %s sources and sinks", text, nodeCount));
+    }
+
+    final int[] nodes = new int[count];
+    for (int i = 0; i < count; i++) {
+      nodes[i] = readNode(parser, nodeCount, text);
+    }
+    return nodes;
+  }
+
+  private static int readNode(final IntParser parser, final int nodeCount, final Path text)
+      throws IOException {
+    final int node = parser.next();
+    if (node < 0 || node >= nodeCount) {
+      throw new IOException(
+          String.format("%s: node %s is not between 0 and %s", text, node, nodeCount - 1));
+    }
+    return node;
+  }
+
+  private static void writeInts(final FileChannel channel, final ByteBuffer buffer,
+      final int[] values, final int count) throws IOException {
+    for (int i = 0; i < count; i++) {
+      if (!buffer.hasRemaining()) {
+        flush(channel, buffer);
+      }
+      buffer.putInt(values[i]);
+    }
+  }
+
+  private static void flush(final FileChannel channel, final ByteBuffer buffer)
+      throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+}
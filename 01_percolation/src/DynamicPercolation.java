@@ -0,0 +1,436 @@
+import java.util.Arrays;
+
+/**
+ * Represents a percolation system whose sites can be closed again after being opened.
+ * <p>
+ * Every open site carries the label of its component, and every component its size and its
+ * numbers of sites in the first and the last row, so {@link #isFull(int, int)} and
+ * {@link #percolates()} are O(1). Opening a site relabels the smaller components it joins into the
+ * largest one. Closing a site searches the pieces its open neighbours are left in, one step of
+ * each search at a time: searches that meet are merged, and as soon as a single one is still
+ * running, the pieces already explored are relabelled and the remaining one keeps the old label.
+ * So only the smaller pieces of the affected component are visited, never the whole grid.
+ */
+public class DynamicPercolation implements PercolationSystem {
+
+  private static final int NO_LABEL = -1;
+
+  // a site has at most four neighbours, so a close starts at most four searches
+  private static final int MAX_SEARCHES = 4;
+
+  private static final int INITIAL_RELABEL_CAPACITY = 16;
+
+  private final int dimension;
+  private final int sitesCount;
+
+  // label of the component of each site, NO_LABEL for blocked sites
+  private final int[] label;
+
+  // size and number of sites in the first and last row of each component, by label
+  private final int[] size;
+  private final int[] topCount;
+  private final int[] bottomCount;
+
+  private final int[] freeLabels;
+  private int freeLabelCount;
+
+  private int openSitesCount;
+
+  // number of components with sites in both the first and the last row
+  private int spanningCount;
+
+  // stamp of the search which visited each site, valid if at least the base of the current close
+  private final int[] stamps;
+  private int stampBase;
+
+  // sites visited by each search of a close, the ones from head on are still to be expanded
+  private final int[][] searchSites = new int[MAX_SEARCHES][];
+  private final int[] searchSize = new int[MAX_SEARCHES];
+  private final int[] searchHead = new int[MAX_SEARCHES];
+
+  // search merged into each search of a close, itself if it was not merged
+  private final int[] searchOwner = new int[MAX_SEARCHES];
+  private final boolean[] searchRunning = new boolean[MAX_SEARCHES];
+
+  // sites to relabel while opening, grown to the largest component relabelled
+  private int[] relabelStack = new int[INITIAL_RELABEL_CAPACITY];
+
+  /**
+   * Creates an N-by-N grid, with all sites blocked (N = dimension)
+   * 
+   * @param dimension the dimension of the grid
+   */
+  public DynamicPercolation(final int dimension) {
+    this.dimension = PercolationSystem.checkDimension(dimension);
+    this.sitesCount = dimension * dimension;
+
+    this.label = new int[sitesCount];
+    this.size = new int[sitesCount];
+    this.topCount = new int[sitesCount];
+    this.bottomCount = new int[sitesCount];
+    this.freeLabels = new int[sitesCount];
+    this.stamps = new int[sitesCount];
+
+    Arrays.fill(label, NO_LABEL);
+    for (int i = 0; i < sitesCount; i++) {
+      freeLabels[i] = sitesCount - 1 - i;
+    }
+    freeLabelCount = sitesCount;
+
+    for (int i = 0; i < MAX_SEARCHES; i++) {
+      searchSites[i] = new int[4];
+    }
+  }
+
+  @Override
+  public void open(final int row, final int column) {
+    checkIndices(row, column);
+    openSite((row - 1) * dimension + column - 1);
+  }
+
+  @Override
+  public void openSite(final int siteId) {
+    checkSiteId(siteId);
+    if (label[siteId] != NO_LABEL) {
+      return;
+    }
+
+    final int newLabel = freeLabels[--freeLabelCount];
+    label[siteId] = newLabel;
+    size[newLabel] = 1;
+    topCount[newLabel] = siteId < dimension ? 1 : 0;
+    bottomCount[newLabel] = siteId >= sitesCount - dimension ? 1 : 0;
+    addComponent(newLabel);
+    ++openSitesCount;
+
+    final int column = siteId % dimension;
+
+    // left
+    if (column > 0) {
+      joinIfOpen(siteId, siteId - 1);
+    }
+
+    // right
+    if (column < dimension - 1) {
+      joinIfOpen(siteId, siteId + 1);
+    }
+
+    // top
+    if (siteId >= dimension) {
+      joinIfOpen(siteId, siteId - dimension);
+    }
+
+    // bottom
+    if (siteId < sitesCount - dimension) {
+      joinIfOpen(siteId, siteId + dimension);
+    }
+  }
+
+  /**
+   * Blocks site (row i, column j) if it is open.
+   * 
+   * @param row
+   * @param column
+   */
+  public void close(final int row, final int column) {
+    checkIndices(row, column);
+    closeSite((row - 1) * dimension + column - 1);
+  }
+
+  /**
+   * Blocks the site with the given id if it is open.
+   * 
+   * @param siteId the id of the site
+   */
+  public void closeSite(final int siteId) {
+    checkSiteId(siteId);
+    final int oldLabel = label[siteId];
+    if (oldLabel == NO_LABEL) {
+      return;
+    }
+
+    removeComponent(oldLabel);
+    label[siteId] = NO_LABEL;
+    --size[oldLabel];
+    if (siteId < dimension) {
+      --topCount[oldLabel];
+    }
+    if (siteId >= sitesCount - dimension) {
+      --bottomCount[oldLabel];
+    }
+    --openSitesCount;
+
+    if (size[oldLabel] == 0) {
+      freeLabels[freeLabelCount++] = oldLabel;
+      return;
+    }
+
+    split(siteId, oldLabel);
+    addComponent(oldLabel);
+  }
+
+  @Override
+  public boolean isOpen(final int row, final int column) {
+    checkIndices(row, column);
+    return label[(row - 1) * dimension + column - 1] != NO_LABEL;
+  }
+
+  @Override
+  public boolean isFull(final int row, final int column) {
+    checkIndices(row, column);
+    final int siteLabel = label[(row - 1) * dimension + column - 1];
+    return siteLabel != NO_LABEL && topCount[siteLabel] > 0;
+  }
+
+  @Override
+  public boolean percolates() {
+    return spanningCount > 0;
+  }
+
+  /**
+   * Returns the number of open sites.
+   * 
+   * @return the number of open sites
+   */
+  public int numberOfOpenSites() {
+    return openSitesCount;
+  }
+
+  private void checkIndices(final int row, final int column) {
+    if (row < 1 || row > dimension || column < 1 || column > dimension) {
+      throw new IndexOutOfBoundsException(
+          String.format("Index must be between 1 and %s", dimension));
+    }
+  }
+
+  private void checkSiteId(final int siteId) {
+    if (siteId < 0 || siteId >= sitesCount) {
+      throw new IndexOutOfBoundsException(
+          String.format("Site id must be between 0 and %s", sitesCount - 1));
+    }
+  }
+
+  private void addComponent(final int componentLabel) {
+    if (topCount[componentLabel] > 0 && bottomCount[componentLabel] > 0) {
+      ++spanningCount;
+    }
+  }
+
+  private void removeComponent(final int componentLabel) {
+    if (topCount[componentLabel] > 0 && bottomCount[componentLabel] > 0) {
+      --spanningCount;
+    }
+  }
+
+  // relabels the smaller of the two components into the larger one
+  private void joinIfOpen(final int siteId, final int neighbourId) {
+    if (label[neighbourId] == NO_LABEL || label[neighbourId] == label[siteId]) {
+      return;
+    }
+
+    int kept = label[siteId];
+    int dropped = label[neighbourId];
+    int start = neighbourId;
+    if (size[kept] < size[dropped]) {
+      kept = label[neighbourId];
+      dropped = label[siteId];
+      start = siteId;
+    }
+
+    removeComponent(kept);
+    removeComponent(dropped);
+    relabel(start, dropped, kept);
+    size[kept] += size[dropped];
+    topCount[kept] += topCount[dropped];
+    bottomCount[kept] += bottomCount[dropped];
+    freeLabels[freeLabelCount++] = dropped;
+    addComponent(kept);
+  }
+
+  private void relabel(final int start, final int from, final int to) {
+    label[start] = to;
+    relabelStack[0] = start;
+    int stackSize = 1;
+
+    while (stackSize > 0) {
+      final int current = relabelStack[--stackSize];
+      final int column = current % dimension;
+
+      if (column > 0) {
+        stackSize = relabelIfFrom(current - 1, from, to, stackSize);
+      }
+      if (column < dimension - 1) {
+        stackSize = relabelIfFrom(current + 1, from, to, stackSize);
+      }
+      if (current >= dimension) {
+        stackSize = relabelIfFrom(current - dimension, from, to, stackSize);
+      }
+      if (current < sitesCount - dimension) {
+        stackSize = relabelIfFrom(current + dimension, from, to, stackSize);
+      }
+    }
+  }
+
+  private int relabelIfFrom(final int siteId, final int from, final int to, final int stackSize) {
+    if (label[siteId] != from) {
+      return stackSize;
+    }
+
+    label[siteId] = to;
+    if (stackSize == relabelStack.length) {
+      relabelStack = Arrays.copyOf(relabelStack, stackSize * 2);
+    }
+    relabelStack[stackSize] = siteId;
+    return stackSize + 1;
+  }
+
+  // gives new labels to the pieces of the component cut off by closing the site
+  private void split(final int siteId, final int oldLabel) {
+    nextStampBase();
+
+    final int column = siteId % dimension;
+    int searchCount = 0;
+    if (column > 0) {
+      searchCount = startSearch(siteId - 1, searchCount);
+    }
+    if (column < dimension - 1) {
+      searchCount = startSearch(siteId + 1, searchCount);
+    }
+    if (siteId >= dimension) {
+      searchCount = startSearch(siteId - dimension, searchCount);
+    }
+    if (siteId < sitesCount - dimension) {
+      searchCount = startSearch(siteId + dimension, searchCount);
+    }
+
+    int running = searchCount;
+    int lastFinished = -1;
+    while (running > 1) {
+      for (int search = 0; search < searchCount; search++) {
+        if (!searchRunning[search]) {
+          continue;
+        }
+
+        if (searchHead[search] == searchSize[search]) {
+          searchRunning[search] = false;
+          lastFinished = search;
+          --running;
+        } else if (!expand(search)) {
+          --running;
+        }
+      }
+    }
+
+    // the piece still being searched (or the last one explored) keeps the old label
+    int kept = lastFinished;
+    for (int search = 0; search < searchCount; search++) {
+      if (searchRunning[search]) {
+        kept = search;
+      }
+    }
+
+    for (int search = 0; search < searchCount; search++) {
+      if (search != kept && searchOwner[search] == search) {
+        detachPiece(search, oldLabel);
+      }
+    }
+  }
+
+  private int startSearch(final int siteId, final int searchCount) {
+    if (label[siteId] == NO_LABEL) {
+      return searchCount;
+    }
+
+    stamps[siteId] = stampBase + searchCount;
+    searchSites[searchCount][0] = siteId;
+    searchSize[searchCount] = 1;
+    searchHead[searchCount] = 0;
+    searchOwner[searchCount] = searchCount;
+    searchRunning[searchCount] = true;
+    return searchCount + 1;
+  }
+
+  // expands the next site of the search, returns false if it met another search it was merged into
+  private boolean expand(final int search) {
+    final int current = searchSites[search][searchHead[search]++];
+    final int column = current % dimension;
+
+    return (column <= 0 || visit(search, current - 1))
+        && (column >= dimension - 1 || visit(search, current + 1))
+        && (current < dimension || visit(search, current - dimension))
+        && (current >= sitesCount - dimension || visit(search, current + dimension));
+  }
+
+  private boolean visit(final int search, final int siteId) {
+    if (label[siteId] == NO_LABEL) {
+      return true;
+    }
+
+    if (stamps[siteId] < stampBase) {
+      stamps[siteId] = stampBase + search;
+      push(search, siteId);
+      return true;
+    }
+
+    final int other = owner(stamps[siteId] - stampBase);
+    if (other == search) {
+      return true;
+    }
+
+    // same piece: the other search takes over all the sites of this one
+    for (int i = 0; i < searchSize[search]; i++) {
+      push(other, searchSites[search][i]);
+    }
+    searchOwner[search] = other;
+    searchRunning[search] = false;
+    return false;
+  }
+
+  private int owner(int search) {
+    while (searchOwner[search] != search) {
+      search = searchOwner[search];
+    }
+    return search;
+  }
+
+  private void push(final int search, final int siteId) {
+    if (searchSize[search] == searchSites[search].length) {
+      searchSites[search] = Arrays.copyOf(searchSites[search], searchSize[search] * 2);
+    }
+    searchSites[search][searchSize[search]++] = siteId;
+  }
+
+  private void detachPiece(final int search, final int oldLabel) {
+    final int newLabel = freeLabels[--freeLabelCount];
+    size[newLabel] = 0;
+    topCount[newLabel] = 0;
+    bottomCount[newLabel] = 0;
+
+    for (int i = 0; i < searchSize[search]; i++) {
+      final int siteId = searchSites[search][i];
+      label[siteId] = newLabel;
+      ++size[newLabel];
+      if (siteId < dimension) {
+        ++topCount[newLabel];
+      }
+      if (siteId >= sitesCount - dimension) {
+        ++bottomCount[newLabel];
+      }
+    }
+
+    size[oldLabel] -= size[newLabel];
+    topCount[oldLabel] -= topCount[newLabel];
+    bottomCount[oldLabel] -= bottomCount[newLabel];
+    addComponent(newLabel);
+  }
+
+  // makes the stamps of the previous closes stale, clearing them when the counter wraps
+  private void nextStampBase() {
+    if (stampBase > Integer.MAX_VALUE - 2 * MAX_SEARCHES) {
+      Arrays.fill(stamps, 0);
+      stampBase = 0;
+    }
+    stampBase += MAX_SEARCHES;
+  }
+
+}
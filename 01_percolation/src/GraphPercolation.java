@@ -0,0 +1,182 @@
+import java.util.Arrays;
+
+/**
+ * Represents a percolation system on the nodes of an arbitrary {@link CsrGraph}, in which nodes
+ * are opened one by one. It follows {@link Percolation}: a union-find with a virtual-source node
+ * joined to the open sources and a virtual-sink node joined to the open sinks, and full nodes
+ * flooded incrementally, so there is no backwash.
+ */
+public class GraphPercolation {
+
+  private static final int INITIAL_FLOOD_CAPACITY = 16;
+
+  private final CsrGraph graph;
+  private final int nodeCount;
+
+  private final boolean[] open;
+  private int openNodesCount;
+
+  // bit i is set iff node i is full, every node is flooded at most once
+  private final long[] fullNodes;
+
+  // nodes marked full but not flooded from yet, the frontier of a flood; grows by doubling to the
+  // largest frontier met
+  private int[] floodStack = new int[INITIAL_FLOOD_CAPACITY];
+
+  // the nodes, then the virtual-source and virtual-sink nodes
+  private final UnionFind unionFind;
+
+  /**
+   * Creates a system on the given graph, with all nodes blocked.
+   * 
+   * @param graph the graph
+   */
+  public GraphPercolation(final CsrGraph graph) {
+    this(graph, UnionFindStrategy.WEIGHTED);
+  }
+
+  /**
+   * Creates a system on the given graph, with all nodes blocked, whose connections are kept by the
+   * given kind of union-find.
+   * 
+   * @param graph the graph
+   * @param unionFind the union-find implementation to use
+   */
+  public GraphPercolation(final CsrGraph graph, final UnionFindStrategy unionFind) {
+    if (graph == null) {
+      throw new IllegalArgumentException("Graph cannot be null");
+    }
+    if (unionFind == null) {
+      throw new IllegalArgumentException("Union-find strategy cannot be null");
+    }
+    if (graph.nodeCount() > Integer.MAX_VALUE - 2) {
+      throw new IllegalArgumentException("Too many nodes for the virtual nodes to be indexed");
+    }
+
+    this.graph = graph;
+    this.nodeCount = graph.nodeCount();
+    this.open = new boolean[nodeCount];
+    this.fullNodes = new long[(nodeCount + Long.SIZE - 1) / Long.SIZE];
+    this.unionFind = unionFind.create(nodeCount + 2);
+  }
+
+  /**
+   * Opens a node if it is not open already.
+   * 
+   * @param node the id of the node
+   */
+  public void openNode(final int node) {
+    checkNode(node);
+    if (open[node]) {
+      return;
+    }
+
+    open[node] = true;
+    ++openNodesCount;
+
+    // connect it with its open neighbours, no allocation per edge
+    boolean fullNeighbour = false;
+    final int end = graph.offset(node + 1);
+    for (int entry = graph.offset(node); entry < end; entry++) {
+      final int neighbour = graph.target(entry);
+      if (open[neighbour]) {
+        unionFind.union(node, neighbour);
+        fullNeighbour |= isFullNode(neighbour);
+      }
+    }
+
+    if (graph.isSource(node)) {
+      unionFind.union(node, getVirtualSource());
+    }
+    if (graph.isSink(node)) {
+      unionFind.union(node, getVirtualSink());
+    }
+
+    // the node is full if it is a source or joins a full component
+    if (graph.isSource(node) || fullNeighbour) {
+      flood(node);
+    }
+  }
+
+  /**
+   * Checks whether a node is open.
+   * 
+   * @param node the id of the node
+   * @return true, iff the node is open
+   */
+  public boolean isOpen(final int node) {
+    checkNode(node);
+    return open[node];
+  }
+
+  /**
+   * Determines whether a node is full.
+   * 
+   * @param node the id of the node
+   * @return true, iff the node is open and connected to a source through open nodes
+   */
+  public boolean isFull(final int node) {
+    checkNode(node);
+    return isFullNode(node);
+  }
+
+  /**
+   * Returns the number of open nodes.
+   * 
+   * @return the number of open nodes
+   */
+  public int numberOfOpenNodes() {
+    return openNodesCount;
+  }
+
+  /**
+   * Indicates whether the system percolates, i.e. an open path connects a source to a sink.
+   * 
+   * @return true, iff the system percolates
+   */
+  public boolean percolates() {
+    return unionFind.connected(getVirtualSource(), getVirtualSink());
+  }
+
+  private void checkNode(final int node) {
+    if (node < 0 || node >= nodeCount) {
+      throw new IndexOutOfBoundsException(
+          String.format("Node must be between 0 and %s", nodeCount - 1));
+    }
+  }
+
+  private boolean isFullNode(final int node) {
+    return (fullNodes[node >>> 6] & (1L << node)) != 0;
+  }
+
+  // marks the node and its open component full, stopping at the nodes full already
+  private void flood(final int node) {
+    int size = 0;
+    fullNodes[node >>> 6] |= 1L << node;
+    floodStack[size++] = node;
+
+    while (size > 0) {
+      final int current = floodStack[--size];
+      final int end = graph.offset(current + 1);
+      for (int entry = graph.offset(current); entry < end; entry++) {
+        final int neighbour = graph.target(entry);
+        if (open[neighbour] && !isFullNode(neighbour)) {
+          fullNodes[neighbour >>> 6] |= 1L << neighbour;
+          if (size == floodStack.length) {
+            floodStack = Arrays.copyOf(floodStack, size * 2);
+          }
+          floodStack[size++] = neighbour;
+        }
+      }
+    }
+  }
+
+  private int getVirtualSource() {
+    return nodeCount;
+  }
+
+  private int getVirtualSink() {
+    return nodeCount + 1;
+  }
+
+}
@@ -0,0 +1,123 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Estimates the percolation threshold of a {@link CsrGraph}, the fraction of its nodes open when a
+ * source first connects to a sink, like {@link PercolationStats} does for grids. The trials run on
+ * the same driver as those of grids, with the same per-trial random streams and statistics. The
+ * graph is shared by all the trials, which traverse its mapped adjacency lists without allocating
+ * anything per edge.
+ */
+public class GraphPercolationStats {
+
+  private final CsrGraph graph;
+  private final UnionFindStrategy unionFind;
+  private final PercolationStats stats;
+
+  /**
+   * Performs T independent experiments on the graph, spreading them across the given pool. As in
+   * {@link PercolationStats}, every trial has its own random stream derived from the seed and the
+   * index of the trial, so the results do not depend on the parallelism of the pool.
+   * 
+   * @param graph the graph
+   * @param experimentCount T
+   * @param seed the seed of the whole study
+   * @param pool the pool executing the trials, or null to execute them on the calling thread
+   * @param unionFind the union-find implementation of the systems
+   * @throws IllegalArgumentException if no source is connected to a sink even with all the nodes
+   *           open
+   */
+  public GraphPercolationStats(final CsrGraph graph, final int experimentCount, final long seed,
+      final ForkJoinPool pool, final UnionFindStrategy unionFind) {
+    if (graph == null) {
+      throw new IllegalArgumentException("Graph cannot be null");
+    }
+    if (unionFind == null) {
+      throw new IllegalArgumentException("Union-find strategy cannot be null");
+    }
+
+    this.graph = graph;
+    this.unionFind = unionFind;
+    this.stats = PercolationStats.ofSimulation(graph.nodeCount(), experimentCount, seed, pool,
+        new PercolationStats.Simulation() {
+          @Override
+          public double execute(final SplittableRandom random) {
+            return executeMonteCarloSimulation(random);
+          }
+        });
+  }
+
+  // sample mean of percolation threshold
+  public double mean() {
+    return stats.mean();
+  }
+
+  // sample standard deviation of percolation threshold
+  public double stddev() {
+    return stats.stddev();
+  }
+
+  // low endpoint of 95% confidence interval
+  public double confidenceLo() {
+    return stats.confidenceLo();
+  }
+
+  // high endpoint of 95% confidence interval
+  public double confidenceHi() {
+    return stats.confidenceHi();
+  }
+
+  /**
+   * Returns the number of experiments performed.
+   * 
+   * @return the number of experiments
+   */
+  public int experimentCount() {
+    return stats.experimentCount();
+  }
+
+  // usage: graph.csr T [threads [seed [unionFind]]]
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2 || args.length > 5) {
+      throw new IllegalArgumentException("Wrong number of command line arguments");
+    }
+
+    final CsrGraph graph = CsrGraph.open(Paths.get(args[0]));
+    final int T = Integer.parseInt(args[1]);
+    final ForkJoinPool pool = new ForkJoinPool(args.length >= 3
+        ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors());
+    final long seed = args.length >= 4 ? Long.parseLong(args[3]) : StdRandom.getSeed();
+    final UnionFindStrategy unionFind =
+        args.length == 5 ? UnionFindStrategy.valueOf(args[4]) : UnionFindStrategy.WEIGHTED;
+
+    final GraphPercolationStats stats;
+    try {
+      stats = new GraphPercolationStats(graph, T, seed, pool, unionFind);
+    } finally {
+      pool.shutdown();
+    }
+
+    StdOut.printf("%-23s = %f\n", "mean", stats.mean());
+    StdOut.printf("%-23s = %f\n", "stddev", stats.stddev());
+    StdOut.printf("95%% confidence interval = %f, %f\n", stats.confidenceLo(),
+        stats.confidenceHi());
+  }
+
+  private double executeMonteCarloSimulation(final SplittableRandom random) {
+    final GraphPercolation percolation = new GraphPercolation(graph, unionFind);
+    final SitePermutation nodes = new SitePermutation(graph.nodeCount(), random);
+
+    while (!percolation.percolates()) {
+      if (!nodes.hasNext()) {
+        throw new IllegalArgumentException("No source of the graph is connected to a sink");
+      }
+      // every node drawn from the permutation is a blocked one
+      percolation.openNode(nodes.next());
+    }
+
+    return (double) percolation.numberOfOpenNodes() / graph.nodeCount();
+  }
+
+}
@@ -0,0 +1,308 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+/**
+ * Labels the clusters of an N-by-N grid in which every site is open independently with
+ * probability p, using the Hoshen-Kopelman algorithm. The grid is generated and labelled row by
+ * row, keeping only the labels of two rows: a cluster is counted as soon as it does not continue
+ * into the next row, and the labels of the clusters still growing are renumbered after every row,
+ * so the memory used is O(N) whatever the number of clusters.
+ */
+public class HoshenKopelman {
+
+  private static final int BLOCKED = -1;
+
+  private final int dimension;
+
+  // union-find over the labels of the last two rows, with cluster sizes and top flags at roots
+  private int[] parent;
+  private long[] size;
+  private boolean[] connectedToTop;
+  private int labelCount;
+
+  // buffers the labels are renumbered into after each row
+  private int[] nextParent;
+  private long[] nextSize;
+  private boolean[] nextConnectedToTop;
+
+  private final int[] stamps;
+  private final int[] renumbered;
+  private int stamp;
+
+  private long openSiteCount;
+  private long clusterCount;
+  private long largestClusterSize;
+  private long spanningClusterMass;
+  private final SortedMap<Long, Long> sizeDistribution = new TreeMap<>();
+
+  /**
+   * Fills an N-by-N grid (N = dimension) at the given occupation probability and labels its
+   * clusters.
+   * 
+   * @param dimension the dimension of the grid
+   * @param probability the probability of a site being open
+   * @param seed the seed of the random fill
+   */
+  public HoshenKopelman(final int dimension, final double probability, final long seed) {
+    if (dimension <= 0) {
+      throw new IllegalArgumentException("Dimension of the grid must be positive");
+    }
+    if (!(probability >= 0 && probability <= 1)) {
+      throw new IllegalArgumentException("Probability must be between 0 and 1");
+    }
+
+    this.dimension = dimension;
+
+    // a row holds at most N/2 + 1 clusters carried over and N/2 + 1 new ones
+    final int capacity = dimension + 2;
+    this.parent = new int[capacity];
+    this.size = new long[capacity];
+    this.connectedToTop = new boolean[capacity];
+    this.nextParent = new int[capacity];
+    this.nextSize = new long[capacity];
+    this.nextConnectedToTop = new boolean[capacity];
+    this.stamps = new int[capacity];
+    this.renumbered = new int[capacity];
+
+    label(probability, new SplittableRandom(seed));
+  }
+
+  /**
+   * Returns the number of open sites.
+   * 
+   * @return the number of open sites
+   */
+  public long openSiteCount() {
+    return openSiteCount;
+  }
+
+  /**
+   * Returns the number of clusters.
+   * 
+   * @return the number of clusters of open sites
+   */
+  public long clusterCount() {
+    return clusterCount;
+  }
+
+  /**
+   * Returns the size of the largest cluster.
+   * 
+   * @return the number of sites in the largest cluster, 0 if there are no open sites
+   */
+  public long largestClusterSize() {
+    return largestClusterSize;
+  }
+
+  /**
+   * Returns the mass of the spanning clusters, i.e. those connecting the top row to the bottom one.
+   * 
+   * @return the number of sites in spanning clusters
+   */
+  public long spanningClusterMass() {
+    return spanningClusterMass;
+  }
+
+  /**
+   * Indicates whether the grid percolates.
+   * 
+   * @return true, iff there is a spanning cluster
+   */
+  public boolean percolates() {
+    return spanningClusterMass > 0;
+  }
+
+  /**
+   * Returns the cluster size distribution.
+   * 
+   * @return the number of clusters for each cluster size that occurs, by ascending size
+   */
+  public SortedMap<Long, Long> sizeDistribution() {
+    return Collections.unmodifiableSortedMap(sizeDistribution);
+  }
+
+  // test client
+  public static void main(String[] args) {
+    if (args.length < 2 || args.length > 3) {
+      throw new IllegalArgumentException("Wrong number of command line arguments");
+    }
+
+    final int N = Integer.parseInt(args[0]);
+    final double p = Double.parseDouble(args[1]);
+    final long seed = args.length == 3 ? Long.parseLong(args[2]) : StdRandom.getSeed();
+
+    final HoshenKopelman clusters = new HoshenKopelman(N, p, seed);
+    StdOut.printf("%-21s = %d\n", "open sites", clusters.openSiteCount());
+    StdOut.printf("%-21s = %d\n", "clusters", clusters.clusterCount());
+    StdOut.printf("%-21s = %d\n", "largest cluster", clusters.largestClusterSize());
+    StdOut.printf("%-21s = %d\n", "spanning cluster mass", clusters.spanningClusterMass());
+  }
+
+  private void label(final double probability, final SplittableRandom random) {
+    int[] previous = new int[dimension];
+    int[] current = new int[dimension];
+    Arrays.fill(previous, BLOCKED);
+
+    for (int row = 0; row < dimension; row++) {
+      final int carriedLabels = labelCount;
+
+      for (int column = 0; column < dimension; column++) {
+        if (random.nextDouble() >= probability) {
+          current[column] = BLOCKED;
+          continue;
+        }
+
+        ++openSiteCount;
+
+        final int left = column > 0 ? current[column - 1] : BLOCKED;
+        final int up = previous[column];
+
+        final int root;
+        if (left == BLOCKED && up == BLOCKED) {
+          root = newLabel(row == 0);
+        } else if (left == BLOCKED) {
+          root = find(up);
+        } else if (up == BLOCKED) {
+          root = find(left);
+        } else {
+          root = union(left, up);
+        }
+
+        ++size[root];
+        current[column] = root;
+      }
+
+      finishInterruptedClusters(current, carriedLabels);
+      renumber(current);
+
+      final int[] swap = previous;
+      previous = current;
+      current = swap;
+    }
+
+    // the clusters of the last row are finished, those reaching the top span the grid
+    ++stamp;
+    for (int label = 0; label < labelCount; label++) {
+      final int root = find(label);
+      if (stamps[root] != stamp) {
+        stamps[root] = stamp;
+        finishCluster(size[root], connectedToTop[root]);
+      }
+    }
+  }
+
+  // counts the clusters of the previous row that do not continue into the current row
+  private void finishInterruptedClusters(final int[] current, final int carriedLabels) {
+    ++stamp;
+    for (int column = 0; column < dimension; column++) {
+      if (current[column] != BLOCKED) {
+        stamps[find(current[column])] = stamp;
+      }
+    }
+
+    for (int label = 0; label < carriedLabels; label++) {
+      final int root = find(label);
+      if (stamps[root] != stamp) {
+        stamps[root] = stamp;
+        finishCluster(size[root], false);
+      }
+    }
+  }
+
+  // renumbers the clusters of the current row from 0, dropping all the other labels
+  private void renumber(final int[] current) {
+    ++stamp;
+    int count = 0;
+
+    for (int column = 0; column < dimension; column++) {
+      if (current[column] == BLOCKED) {
+        continue;
+      }
+
+      final int root = find(current[column]);
+      if (stamps[root] != stamp) {
+        stamps[root] = stamp;
+        renumbered[root] = count;
+        nextParent[count] = count;
+        nextSize[count] = size[root];
+        nextConnectedToTop[count] = connectedToTop[root];
+        ++count;
+      }
+      current[column] = renumbered[root];
+    }
+
+    final int[] swapParent = parent;
+    parent = nextParent;
+    nextParent = swapParent;
+
+    final long[] swapSize = size;
+    size = nextSize;
+    nextSize = swapSize;
+
+    final boolean[] swapConnectedToTop = connectedToTop;
+    connectedToTop = nextConnectedToTop;
+    nextConnectedToTop = swapConnectedToTop;
+
+    labelCount = count;
+  }
+
+  private void finishCluster(final long clusterSize, final boolean spanning) {
+    ++clusterCount;
+    largestClusterSize = Math.max(largestClusterSize, clusterSize);
+    if (spanning) {
+      spanningClusterMass += clusterSize;
+    }
+
+    final Long count = sizeDistribution.get(clusterSize);
+    sizeDistribution.put(clusterSize, count == null ? 1 : count + 1);
+  }
+
+  private int newLabel(final boolean topRow) {
+    final int label = labelCount++;
+    parent[label] = label;
+    size[label] = 0;
+    connectedToTop[label] = topRow;
+    return label;
+  }
+
+  private int find(final int label) {
+    int root = label;
+    while (parent[root] != root) {
+      root = parent[root];
+    }
+
+    // path compression
+    int current = label;
+    while (current != root) {
+      final int next = parent[current];
+      parent[current] = root;
+      current = next;
+    }
+
+    return root;
+  }
+
+  // union by size, returns the new root
+  private int union(final int label, final int label2) {
+    int root = find(label);
+    int root2 = find(label2);
+    if (root == root2) {
+      return root;
+    }
+
+    if (size[root] < size[root2]) {
+      final int swap = root;
+      root = root2;
+      root2 = swap;
+    }
+
+    parent[root2] = root;
+    size[root] += size[root2];
+    connectedToTop[root] |= connectedToTop[root2];
+    return root;
+  }
+
+}
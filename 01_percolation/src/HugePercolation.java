@@ -0,0 +1,254 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Represents a percolation system for grids too large for the Java heap. Sites are indexed by
+ * long, the open sites are kept in a bit set and the union-find in an array of longs, both in
+ * off-heap {@link LongStorage}. As in {@link CompactPercolation}, a single union-find is used and
+ * every root carries a connected-to-bottom bit.
+ */
+public class HugePercolation implements PercolationSystem, Closeable {
+
+  private static final long VIRTUAL_TOP = 0;
+
+  // layout of a union-find entry: parent + 1 (0 for roots), rank and connected-to-bottom bit
+  private static final long PARENT_MASK = (1L << 48) - 1;
+  private static final int RANK_SHIFT = 48;
+  private static final long RANK_MASK = 0x3FL << RANK_SHIFT;
+  private static final long CONNECTED_TO_BOTTOM = 1L << 62;
+
+  private static final int WORD_SHIFT = 6;
+
+  private final int dimension;
+  private final long siteCount;
+
+  private final LongStorage openSites;
+  private final LongStorage unionFind;
+
+  private boolean percolates;
+
+  /**
+   * Creates an N-by-N grid, with all sites blocked (N = dimension), stored in direct memory.
+   * 
+   * @param dimension the dimension of the grid
+   */
+  public HugePercolation(final int dimension) {
+    this.dimension = checkDimension(dimension);
+    this.siteCount = (long) dimension * dimension;
+    this.openSites = new LongStorage(wordCount(siteCount + 1));
+    this.unionFind = new LongStorage(siteCount + 1);
+  }
+
+  /**
+   * Creates an N-by-N grid, with all sites blocked (N = dimension), stored in files mapped from
+   * the given directory. The files are unlinked as soon as they are mapped.
+   * 
+   * @param dimension the dimension of the grid
+   * @param directory the directory of the backing files
+   * @throws IOException if the backing files cannot be created
+   */
+  public HugePercolation(final int dimension, final Path directory) throws IOException {
+    this.dimension = checkDimension(dimension);
+    this.siteCount = (long) dimension * dimension;
+
+    final Path openSitesFile = Files.createTempFile(directory, "open", ".bits");
+    final Path unionFindFile = Files.createTempFile(directory, "uf", ".bin");
+
+    this.openSites = new LongStorage(wordCount(siteCount + 1), openSitesFile);
+    this.unionFind = new LongStorage(siteCount + 1, unionFindFile);
+
+    // the mappings stay valid after the files are unlinked
+    Files.delete(openSitesFile);
+    Files.delete(unionFindFile);
+  }
+
+  @Override
+  public void open(final int row, final int column) {
+    checkIndices(row, column);
+    openSite(getSiteId(row, column));
+  }
+
+  @Override
+  public void openSite(final int siteId) {
+    openSite((long) siteId);
+  }
+
+  /**
+   * Opens the site with the given id if it is not open already. Site (row i, column j) has id
+   * (i - 1) * N + (j - 1).
+   * 
+   * @param siteId the id of the site, between 0 and N*N - 1
+   */
+  public void openSite(final long siteId) {
+    if (siteId < 0 || siteId >= siteCount) {
+      throw new IndexOutOfBoundsException(
+          String.format("Site id must be between 0 and %s", siteCount - 1));
+    }
+
+    final long sideId = siteId + 1;
+    if (isOpen(sideId)) {
+      return;
+    }
+
+    final long word = sideId >>> WORD_SHIFT;
+    openSites.set(word, openSites.get(word) | 1L << sideId);
+
+    // sites of the last row are connected to the bottom by themselves
+    if (siteId >= siteCount - dimension) {
+      unionFind.set(sideId, CONNECTED_TO_BOTTOM);
+    }
+
+    // sites of the first row are connected to the top
+    if (siteId < dimension) {
+      union(sideId, VIRTUAL_TOP);
+    }
+
+    final long column = siteId % dimension;
+
+    // left
+    if (column > 0) {
+      unionIfOpen(sideId, sideId - 1);
+    }
+
+    // right
+    if (column < dimension - 1) {
+      unionIfOpen(sideId, sideId + 1);
+    }
+
+    // top
+    if (siteId >= dimension) {
+      unionIfOpen(sideId, sideId - dimension);
+    }
+
+    // bottom
+    if (siteId < siteCount - dimension) {
+      unionIfOpen(sideId, sideId + dimension);
+    }
+
+    // the system percolates once the component of the top reaches the bottom
+    if (!percolates) {
+      percolates = (unionFind.get(find(VIRTUAL_TOP)) & CONNECTED_TO_BOTTOM) != 0;
+    }
+  }
+
+  @Override
+  public boolean isOpen(final int row, final int column) {
+    checkIndices(row, column);
+    return isOpen(getSiteId(row, column) + 1);
+  }
+
+  @Override
+  public boolean isFull(final int row, final int column) {
+    checkIndices(row, column);
+
+    final long sideId = getSiteId(row, column) + 1;
+    return isOpen(sideId) && find(sideId) == find(VIRTUAL_TOP);
+  }
+
+  @Override
+  public boolean percolates() {
+    return percolates;
+  }
+
+  /**
+   * Closes the backing files, if any. The system must not be used afterwards.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      openSites.close();
+    } finally {
+      unionFind.close();
+    }
+  }
+
+  private boolean isOpen(final long sideId) {
+    return (openSites.get(sideId >>> WORD_SHIFT) & 1L << sideId) != 0;
+  }
+
+  private long getSiteId(final int row, final int column) {
+    return (long) (row - 1) * dimension + column - 1;
+  }
+
+  private void checkIndices(final int row, final int column) {
+    checkIndex(row);
+    checkIndex(column);
+  }
+
+  private void checkIndex(final int index) {
+    if (index < 1 || index > dimension) {
+      throw new IndexOutOfBoundsException(
+          String.format("Index must be between 1 and %s", dimension));
+    }
+  }
+
+  private void unionIfOpen(final long sideId, final long neighbourSideId) {
+    if (isOpen(neighbourSideId)) {
+      union(sideId, neighbourSideId);
+    }
+  }
+
+  private long parent(final long sideId) {
+    final long parent = unionFind.get(sideId) & PARENT_MASK;
+    return parent == 0 ? sideId : parent - 1;
+  }
+
+  private void setParent(final long sideId, final long parent) {
+    unionFind.set(sideId, parent + 1);
+  }
+
+  // finds the root with path halving
+  private long find(final long sideId) {
+    long current = sideId;
+    long parent = parent(current);
+    while (parent != current) {
+      final long grandParent = parent(parent);
+      setParent(current, grandParent);
+      current = grandParent;
+      parent = parent(current);
+    }
+    return current;
+  }
+
+  // union by rank, the new root inherits the connected-to-bottom bit of both roots
+  private void union(final long sideId, final long site2Id) {
+    final long root = find(sideId);
+    final long root2 = find(site2Id);
+    if (root == root2) {
+      return;
+    }
+
+    final long entry = unionFind.get(root);
+    final long entry2 = unionFind.get(root2);
+    final long bottom = (entry | entry2) & CONNECTED_TO_BOTTOM;
+
+    if ((entry & RANK_MASK) < (entry2 & RANK_MASK)) {
+      setParent(root, root2);
+      unionFind.set(root2, entry2 | bottom);
+    } else {
+      setParent(root2, root);
+      if ((entry & RANK_MASK) == (entry2 & RANK_MASK)) {
+        unionFind.set(root, (entry + (1L << RANK_SHIFT)) | bottom);
+      } else {
+        unionFind.set(root, entry | bottom);
+      }
+    }
+  }
+
+  private static int checkDimension(final int dimension) {
+    if (dimension <= 0) {
+      throw new IllegalArgumentException("Dimension of the grid must be positive");
+    }
+    if ((long) dimension * dimension >= PARENT_MASK) {
+      throw new IllegalArgumentException("Dimension of the grid is too large");
+    }
+    return dimension;
+  }
+
+  private static long wordCount(final long bitCount) {
+    return (bitCount + (1L << WORD_SHIFT) - 1) >>> WORD_SHIFT;
+  }
+
+}
@@ -0,0 +1,57 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Parses the whitespace-separated decimal ints of a text file, without the cost of a Scanner, for
+ * the converters of text inputs to binary files.
+ */
+final class IntParser {
+
+  private final InputStream in;
+  private final Path file;
+  private int next;
+
+  IntParser(final InputStream in, final Path file) throws IOException {
+    this.in = in;
+    this.file = file;
+    this.next = in.read();
+  }
+
+  // skips whitespace, true iff another int follows
+  boolean hasNext() throws IOException {
+    while (next != -1 && Character.isWhitespace(next)) {
+      next = in.read();
+    }
+    return next != -1;
+  }
+
+  // the next int, which must be followed by whitespace or the end of the file
+  int next() throws IOException {
+    if (!hasNext()) {
+      throw new EOFException(file + " ends unexpectedly");
+    }
+
+    final boolean negative = next == '-';
+    if (negative) {
+      next = in.read();
+    }
+
+    long value = 0;
+    int digits = 0;
+    while (next >= '0' && next <= '9') {
+      value = value * 10 + next - '0';
+      if (value > Integer.MAX_VALUE) {
+        throw new IOException(file + " holds a number out of the range of int");
+      }
+      ++digits;
+      next = in.read();
+    }
+    if (digits == 0 || (next != -1 && !Character.isWhitespace(next))) {
+      throw new IOException(file + " holds something else than integers");
+    }
+    return (int) (negative ? -value : value);
+  }
+
+}
@@ -1,18 +1,25 @@
 /****************************************************************************
  *  Compilation:  javac InteractivePercolationVisualizer.java
  *  Execution:    java InteractivePercolationVisualizer N
- *  Dependencies: PercolationVisualizer.java Percolation.java
+ *  Dependencies: PercolationRenderer.java Percolation.java
  *                StdDraw.java StdOut.java
  *
  *  This program takes the grid size N as a command-line argument.
  *  Then, the user repeatedly clicks sites to open with the mouse.
  *  After each site is opened, it draws full sites in light blue,
  *  open sites (that aren't full) in white, and blocked sites in black.
+ *  Only the sites that changed are redrawn, and only when they changed.
  *
  ****************************************************************************/
 
 public class InteractivePercolationVisualizer {
 
+    // maximum number of frames drawn per second
+    private static final int FRAMES_PER_SECOND = 50;
+
+    // delay in miliseconds between two polls of the mouse
+    private static final int POLL_DELAY = 20;
+
     public static void main(String[] args) {
         // N-by-N percolation system (read from command-line, default = 10)
         int N = 10;          
@@ -21,10 +28,10 @@ public class InteractivePercolationVisualizer {
         // repeatedly open site specified my mouse click and draw resulting system
         StdOut.println(N);
 
-        StdDraw.show(0);
         Percolation perc = new Percolation(N);
-        PercolationVisualizer.draw(perc, N);
-        StdDraw.show(0);
+        PercolationRenderer renderer =
+            PercolationRenderer.onScreen(perc, N, FRAMES_PER_SECOND);
+        renderer.flush();
 
         while (true) {
 
@@ -46,12 +53,17 @@ public class InteractivePercolationVisualizer {
                     }
                     perc.open(i, j);
                 }
+            }
 
-                // draw N-by-N percolation system
-                StdDraw.show(0);
-                PercolationVisualizer.draw(perc, N);
+            // draw the sites that changed, if any
+            if (!renderer.render()) {
+                try {
+                    Thread.sleep(POLL_DELAY);
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
             }
-            StdDraw.show(20);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+/**
+ * Union-find data structure with union by size and path halving, which keeps the parent and the
+ * size of a site next to each other in a single array, so that a union reads them from the same
+ * cache line.
+ */
+public class InterleavedUnionFind implements UnionFind {
+
+  // nodes[2 * i] = parent of site i, nodes[2 * i + 1] = size of its tree if it is a root
+  private final int[] nodes;
+
+  /**
+   * Creates n singleton sets, numbered from 0 to n - 1.
+   * 
+   * @param n the number of sites
+   */
+  public InterleavedUnionFind(final int n) {
+    if (n < 0 || n > Integer.MAX_VALUE / 2) {
+      throw new IllegalArgumentException(
+          String.format("Number of sites must be between 0 and %s", Integer.MAX_VALUE / 2));
+    }
+
+    this.nodes = new int[2 * n];
+    for (int i = 0; i < n; i++) {
+      nodes[2 * i] = i;
+      nodes[2 * i + 1] = 1;
+    }
+  }
+
+  @Override
+  public int find(int site) {
+    if (site < 0 || site >= nodes.length / 2) {
+      throw new IndexOutOfBoundsException(
+          String.format("Site must be between 0 and %s", nodes.length / 2 - 1));
+    }
+
+    // path halving
+    while (nodes[2 * site] != site) {
+      final int grandparent = nodes[2 * nodes[2 * site]];
+      nodes[2 * site] = grandparent;
+      site = grandparent;
+    }
+    return site;
+  }
+
+  @Override
+  public void union(final int site, final int site2) {
+    int root = find(site);
+    int root2 = find(site2);
+    if (root == root2) {
+      return;
+    }
+
+    if (nodes[2 * root + 1] < nodes[2 * root2 + 1]) {
+      final int swap = root;
+      root = root2;
+      root2 = swap;
+    }
+
+    nodes[2 * root2] = root;
+    nodes[2 * root + 1] += nodes[2 * root2 + 1];
+  }
+
+  @Override
+  public boolean connected(final int site, final int site2) {
+    return find(site) == find(site2);
+  }
+
+}
@@ -0,0 +1,122 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A fixed-length array of longs stored outside of the Java heap and indexed by long. The values
+ * are kept in segments of direct buffers, or of buffers mapped from a file, so the length is not
+ * limited by the heap nor by the range of int. All the values are initially 0.
+ */
+public class LongStorage implements Closeable {
+
+  // each segment holds 2^27 longs (1 GiB)
+  private static final int SEGMENT_SHIFT = 27;
+  private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+  private final long length;
+  private final LongBuffer[] segments;
+  private final FileChannel channel;
+
+  /**
+   * Creates a storage in direct memory (bounded by -XX:MaxDirectMemorySize).
+   * 
+   * @param length the number of longs
+   */
+  public LongStorage(final long length) {
+    this.length = checkLength(length);
+    this.segments = new LongBuffer[segmentCount(length)];
+    this.channel = null;
+
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = ByteBuffer.allocateDirect(segmentLength(i) * Long.BYTES)
+          .order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+  }
+
+  /**
+   * Creates a storage mapped from the given file, which is created or truncated. The pages are
+   * backed by the file, so the storage can be larger than the physical memory.
+   * 
+   * @param length the number of longs
+   * @param file the backing file
+   * @throws IOException if the file cannot be created or mapped
+   */
+  public LongStorage(final long length, final Path file) throws IOException {
+    this.length = checkLength(length);
+    this.segments = new LongBuffer[segmentCount(length)];
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+    try {
+      for (int i = 0; i < segments.length; i++) {
+        final long position = ((long) i << SEGMENT_SHIFT) * Long.BYTES;
+        segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, position,
+            (long) segmentLength(i) * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+      }
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the number of longs in the storage.
+   * 
+   * @return the length of the storage
+   */
+  public long length() {
+    return length;
+  }
+
+  /**
+   * Returns the value at the given index.
+   * 
+   * @param index between 0 and length - 1
+   * @return the value at the index
+   */
+  public long get(final long index) {
+    return segments[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK));
+  }
+
+  /**
+   * Sets the value at the given index.
+   * 
+   * @param index between 0 and length - 1
+   * @param value the new value
+   */
+  public void set(final long index, final long value) {
+    segments[(int) (index >>> SEGMENT_SHIFT)].put((int) (index & SEGMENT_MASK), value);
+  }
+
+  /**
+   * Closes the backing file, if any. The storage must not be used afterwards.
+   */
+  @Override
+  public void close() throws IOException {
+    if (channel != null) {
+      channel.close();
+    }
+  }
+
+  private int segmentLength(final int segment) {
+    final long remaining = length - ((long) segment << SEGMENT_SHIFT);
+    return (int) Math.min(remaining, 1L << SEGMENT_SHIFT);
+  }
+
+  private static long checkLength(final long length) {
+    if (length < 0) {
+      throw new IllegalArgumentException("Length cannot be negative");
+    }
+    return length;
+  }
+
+  private static int segmentCount(final long length) {
+    return (int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+  }
+
+}
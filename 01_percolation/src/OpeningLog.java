@@ -0,0 +1,250 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary log of the sites opened in a percolation system, replayed by mapping the file into
+ * memory, so that opening its sites costs neither text parsing nor index conversion.
+ * <p>
+ * The file starts with a header (magic number, format version and N), followed by one site id per
+ * opened site, all as little-endian ints. Site (row i, column j) has id (i - 1) * N + (j - 1).
+ * Logs are converted from the text format read by {@link PercolationVisualizer}: N, then the row
+ * and column of every opened site.
+ */
+public class OpeningLog implements Closeable {
+
+  // "PLOG"
+  private static final int MAGIC = 0x504C4F47;
+  private static final int VERSION = 1;
+
+  // magic number, version and N
+  private static final int HEADER_SIZE = 12;
+  private static final int RECORD_SIZE = 4;
+
+  // bytes mapped at once, the whole log may not fit in a single mapping
+  private static final long WINDOW_SIZE = 1L << 28;
+
+  // number of site ids converted or replayed at once
+  private static final int BUFFER_RECORDS = 1 << 16;
+
+  private final FileChannel channel;
+  private final int dimension;
+  private final long siteCount;
+
+  // site ids of the current mapping, and the position of its end in the file
+  private IntBuffer window;
+  private long windowEnd;
+
+  private OpeningLog(final FileChannel channel, final int dimension, final long siteCount) {
+    this.channel = channel;
+    this.dimension = dimension;
+    this.siteCount = siteCount;
+    this.window = IntBuffer.allocate(0);
+    this.windowEnd = HEADER_SIZE;
+  }
+
+  /**
+   * Opens a log to replay it from its first site.
+   * 
+   * @param file the file
+   * @return the log
+   * @throws IOException if the file cannot be read, or is not an opening log
+   */
+  public static OpeningLog open(final Path file) throws IOException {
+    final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      final ByteBuffer header = readHeader(channel);
+      if (header == null || header.getInt() != MAGIC) {
+        throw new IOException(file + " is not an opening log");
+      }
+      final int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException(String.format("%s has unsupported format version %s", file, version));
+      }
+
+      final int dimension = header.getInt();
+      final long records = channel.size() - HEADER_SIZE;
+      if (dimension <= 0 || records % RECORD_SIZE != 0) {
+        throw new IOException(file + " is corrupt");
+      }
+      return new OpeningLog(channel, dimension, records / RECORD_SIZE);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Indicates whether the file is an opening log rather than a text file.
+   * 
+   * @param file the file
+   * @return true, iff the file starts with the magic number of opening logs
+   * @throws IOException if the file cannot be read
+   */
+  public static boolean isLog(final Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final ByteBuffer header = readHeader(channel);
+      return header != null && header.getInt() == MAGIC;
+    }
+  }
+
+  /**
+   * Converts a text file of opened sites (N, then the row and column of every site) to a log.
+   * 
+   * @param text the text file
+   * @param file the log, replaced if it exists
+   * @throws IOException if a file cannot be read or written, or the text file is malformed
+   */
+  public static void convert(final Path text, final Path file) throws IOException {
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(text));
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      final IntParser parser = new IntParser(in, text);
+      if (!parser.hasNext()) {
+        throw new IOException(text + " is empty");
+      }
+      final int dimension = parser.next();
+      if (dimension <= 0) {
+        throw new IOException(text + ": dimension of the grid must be positive");
+      }
+
+      final ByteBuffer buffer =
+          ByteBuffer.allocate(BUFFER_RECORDS * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      buffer.putInt(MAGIC).putInt(VERSION).putInt(dimension);
+
+      while (parser.hasNext()) {
+        final int row = parser.next();
+        if (!parser.hasNext()) {
+          throw new IOException(text + ": the column of the last site is missing");
+        }
+        final int column = parser.next();
+        if (row < 1 || row > dimension || column < 1 || column > dimension) {
+          throw new IOException(String.format("%s: site (%s, %s) is outside the %s-by-%s grid",
+              text, row, column, dimension, dimension));
+        }
+
+        if (!buffer.hasRemaining()) {
+          writeFully(channel, buffer);
+        }
+        buffer.putInt((row - 1) * dimension + column - 1);
+      }
+      writeFully(channel, buffer);
+    }
+  }
+
+  /**
+   * Returns N of the logged system.
+   * 
+   * @return the dimension of the grid
+   */
+  public int dimension() {
+    return dimension;
+  }
+
+  /**
+   * Returns the number of sites in the log.
+   * 
+   * @return the number of site ids
+   */
+  public long siteCount() {
+    return siteCount;
+  }
+
+  /**
+   * Reads the ids of the next sites of the log.
+   * 
+   * @param siteIds the array the ids are copied into, from index 0
+   * @return the number of ids read, 0 once the whole log has been read
+   * @throws IOException if the file cannot be mapped
+   */
+  public int read(final int[] siteIds) throws IOException {
+    if (!window.hasRemaining()) {
+      final long end = HEADER_SIZE + siteCount * RECORD_SIZE;
+      if (windowEnd == end) {
+        return 0;
+      }
+
+      final long size = Math.min(WINDOW_SIZE, end - windowEnd);
+      window = channel.map(FileChannel.MapMode.READ_ONLY, windowEnd, size)
+          .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+      windowEnd += size;
+    }
+
+    final int count = Math.min(siteIds.length, window.remaining());
+    window.get(siteIds, 0, count);
+    return count;
+  }
+
+  /**
+   * Opens the remaining sites of the log in the given system, in batches.
+   * 
+   * @param system a system of dimension {@link #dimension()}
+   * @throws IOException if the file cannot be mapped
+   */
+  public void replay(final PercolationSystem system) throws IOException {
+    final int[] siteIds = new int[BUFFER_RECORDS];
+    int count;
+    while ((count = read(siteIds)) > 0) {
+      system.openAll(siteIds, 0, count);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  // usage: input.txt output.log converts a text file, input.log replays a log headless
+  public static void main(String[] args) throws IOException {
+    if (args.length == 2) {
+      convert(Paths.get(args[0]), Paths.get(args[1]));
+      return;
+    }
+    if (args.length != 1) {
+      throw new IllegalArgumentException("Wrong number of command line arguments");
+    }
+
+    try (OpeningLog log = open(Paths.get(args[0]))) {
+      final Percolation percolation = new Percolation(log.dimension());
+      log.replay(percolation);
+      StdOut.printf("%-23s = %d\n", "open sites", percolation.numberOfOpenSites());
+      StdOut.println("Percolates:" + percolation.percolates());
+    }
+  }
+
+  // the header in little-endian order, or null if the file is too short
+  private static ByteBuffer readHeader(final FileChannel channel) throws IOException {
+    if (channel.size() < HEADER_SIZE) {
+      return null;
+    }
+
+    final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    while (header.hasRemaining()) {
+      if (channel.read(header, header.position()) < 0) {
+        throw new EOFException("Opening log is shorter than its header");
+      }
+    }
+    header.flip();
+    return header;
+  }
+
+  private static void writeFully(final FileChannel channel, final ByteBuffer buffer)
+      throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+}
@@ -1,18 +1,31 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
 /**
  * Represents a percolation system.
  */
-public class Percolation {
+public class Percolation implements PercolationSystem {
+
+  private static final int INITIAL_FLOOD_CAPACITY = 16;
 
   private final int dimension;
   private final int sitesCount;
 
   private final boolean[] grid;
+  private int openSitesCount;
+
+  // bit i is set iff site i (0-based) is full; a site becomes full when its open component first
+  // reaches the top, then the whole component is flooded, so every site is flooded at most once
+  private final long[] fullSites;
 
-  // used to store the connections among nodes, plus a virtual-top node
-  private final WeightedQuickUnionUF unionFindWithTopVirtualNode;
+  // sites marked full but not flooded from yet, the frontier of a flood; grows by doubling to the
+  // largest frontier met, which is usually far below N*N
+  private int[] floodStack = new int[INITIAL_FLOOD_CAPACITY];
+
+  private PercolationListener listener;
 
   // used to store the connections among nodes, plus virtual-top & virtual-bottom nodes
-  private final WeightedQuickUnionUF unionFindWithTopBottomVirtualNodes;
+  private final UnionFind unionFindWithTopBottomVirtualNodes;
 
   /**
    * Creates an N-by-N grid, with all sites blocked (N = dimension)
@@ -20,23 +33,33 @@ public class Percolation {
    * @param dimension the dimension of the grid
    */
   public Percolation(final int dimension) {
-    if (dimension <= 0) {
-      throw new IllegalArgumentException("Dimension of the grid must be positive");
-    }
+    this(dimension, UnionFindStrategy.WEIGHTED);
+  }
 
-    this.dimension = dimension;
+  /**
+   * Creates an N-by-N grid, with all sites blocked (N = dimension), whose connections are kept by
+   * the given kind of union-find.
+   * 
+   * @param dimension the dimension of the grid
+   * @param unionFind the union-find implementation to use
+   */
+  public Percolation(final int dimension, final UnionFindStrategy unionFind) {
+    if (unionFind == null) {
+      throw new IllegalArgumentException("Union-find strategy cannot be null");
+    }
+    this.dimension = PercolationSystem.checkDimension(dimension);
     this.sitesCount = dimension * dimension + 2; // add two virtual nodes
 
     this.grid = new boolean[sitesCount];
-    this.unionFindWithTopVirtualNode = new WeightedQuickUnionUF(sitesCount - 1);
-    this.unionFindWithTopBottomVirtualNodes = new WeightedQuickUnionUF(sitesCount);
+    this.fullSites = new long[(dimension * dimension + Long.SIZE - 1) / Long.SIZE];
+    this.unionFindWithTopBottomVirtualNodes = unionFind.create(sitesCount);
 
     // union first row with virtual-top node
     for (int j = 0; j < dimension; j++) {
       union(getVirtualStartPoint(), j + 1);
     }
 
-    // union last row with virtual-bottom node, only in reference UF
+    // union last row with virtual-bottom node
     for (int j = 0; j < dimension; j++) {
       unionFindWithTopBottomVirtualNodes.union(getVirtualEndPoint(), getSideId(dimension, j + 1));
     }
@@ -48,25 +71,95 @@ public class Percolation {
    * @param row
    * @param column
    */
+  @Override
   public void open(final int row, int column) {
     checkIndices(row, column);
+    openSite(getSideId(row, column) - 1);
+  }
+
+  /**
+   * Opens the site with the given id if it is not open already. Sites are numbered row by row from
+   * 0 to N*N - 1, so site (row i, column j) has id (i - 1) * N + (j - 1).
+   * 
+   * @param siteId the id of the site
+   */
+  @Override
+  public void openSite(final int siteId) {
+    checkSiteId(siteId);
+    openValidSite(siteId);
+  }
+
+  /**
+   * Opens the sites with the given ids, in order. All the ids are checked before any site is
+   * opened, so either every site is opened or none is.
+   * 
+   * @param siteIds the ids of the sites
+   * @param offset the index of the first id to open
+   * @param length the number of ids to open
+   */
+  @Override
+  public void openAll(final int[] siteIds, final int offset, final int length) {
+    if (offset < 0 || length < 0 || offset > siteIds.length - length) {
+      throw new IndexOutOfBoundsException(String.format(
+          "Range [%s, %s) is outside the %s ids", offset, offset + length, siteIds.length));
+    }
+
+    final int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      checkSiteId(siteIds[i]);
+    }
+    for (int i = offset; i < end; i++) {
+      openValidSite(siteIds[i]);
+    }
+  }
+
+  private void checkSiteId(final int siteId) {
+    if (siteId < 0 || siteId >= dimension * dimension) {
+      throw new IndexOutOfBoundsException(
+          String.format("Site id must be between 0 and %s", dimension * dimension - 1));
+    }
+  }
+
+  private void openValidSite(final int siteId) {
+    final int sideId = siteId + 1;
+    if (grid[sideId]) {
+      return;
+    }
 
     // open the site
-    final int sideId = getSideId(row, column);
     grid[sideId] = true;
+    ++openSitesCount;
+    if (listener != null) {
+      listener.siteOpened(siteId);
+    }
 
     // connect it with its neighbours
+    final int column = siteId % dimension;
+
     // left
-    unionIfPossible(sideId, row, column - 1);
+    if (column > 0) {
+      unionIfOpen(sideId, sideId - 1);
+    }
 
     // right
-    unionIfPossible(sideId, row, column + 1);
+    if (column < dimension - 1) {
+      unionIfOpen(sideId, sideId + 1);
+    }
 
     // top
-    unionIfPossible(sideId, row - 1, column);
+    if (siteId >= dimension) {
+      unionIfOpen(sideId, sideId - dimension);
+    }
 
     // bottom
-    unionIfPossible(sideId, row + 1, column);
+    if (siteId < dimension * (dimension - 1)) {
+      unionIfOpen(sideId, sideId + dimension);
+    }
+
+    // the site is full if it is in the first row or joins a full component
+    if (siteId < dimension || hasFullNeighbour(siteId, column)) {
+      flood(siteId);
+    }
   }
 
   /**
@@ -76,6 +169,7 @@ public class Percolation {
    * @param column
    * @return true, iff the site is already open
    */
+  @Override
   public boolean isOpen(final int row, final int column) {
     checkIndices(row, column);
     return grid[getSideId(row, column)];
@@ -88,12 +182,37 @@ public class Percolation {
    * @param column
    * @return true, iff the site is full (connected to the virtual-top node)
    */
+  @Override
   public boolean isFull(final int row, final int column) {
     checkIndices(row, column);
+    return isFullSite(getSideId(row, column) - 1);
+  }
+
+  /**
+   * Returns the number of open sites.
+   * 
+   * @return the number of open sites
+   */
+  public int numberOfOpenSites() {
+    return openSitesCount;
+  }
 
-    // check if site is open and is connected to virtual-top node
-    return isOpen(row, column)
-        && unionFindWithTopVirtualNode.connected(getVirtualStartPoint(), getSideId(row, column));
+  /**
+   * Sets the listener notified of the sites being opened or becoming full.
+   * 
+   * @param listener the listener, or null to stop notifications
+   */
+  public void setListener(final PercolationListener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Returns the full sites in bulk.
+   * 
+   * @return a bit set in which bit i is set iff the site with id i is full
+   */
+  public BitSet fullSites() {
+    return BitSet.valueOf(fullSites);
   }
 
   /**
@@ -101,6 +220,7 @@ public class Percolation {
    * 
    * @return true, iff the system percolates
    */
+  @Override
   public boolean percolates() {
     // edge case: 1-by-1 grid
     if (dimension == 1) {
@@ -142,13 +262,68 @@ public class Percolation {
   }
 
   private void union(final int siteId, final int site2Id) {
-    unionFindWithTopVirtualNode.union(siteId, site2Id);
     unionFindWithTopBottomVirtualNodes.union(siteId, site2Id);
   }
 
-  private void unionIfPossible(final int sideId, final int row, final int column) {
-    if (isValidIndex(row) && isValidIndex(column) && isOpen(row, column)) {
-      union(sideId, getSideId(row, column));
+  private void unionIfOpen(final int sideId, final int neighbourSideId) {
+    if (grid[neighbourSideId]) {
+      union(sideId, neighbourSideId);
+    }
+  }
+
+  private boolean isFullSite(final int siteId) {
+    return (fullSites[siteId / Long.SIZE] & 1L << siteId) != 0;
+  }
+
+  private boolean hasFullNeighbour(final int siteId, final int column) {
+    return (column > 0 && isFullSite(siteId - 1))
+        || (column < dimension - 1 && isFullSite(siteId + 1))
+        || (siteId >= dimension && isFullSite(siteId - dimension))
+        || (siteId < dimension * (dimension - 1) && isFullSite(siteId + dimension));
+  }
+
+  // marks the site and all the open sites reachable from it as full
+  private void flood(final int siteId) {
+    markFull(siteId);
+    floodStack[0] = siteId;
+    int stackSize = 1;
+
+    while (stackSize > 0) {
+      final int current = floodStack[--stackSize];
+      final int column = current % dimension;
+
+      if (column > 0) {
+        stackSize = floodIfOpen(current - 1, stackSize);
+      }
+      if (column < dimension - 1) {
+        stackSize = floodIfOpen(current + 1, stackSize);
+      }
+      if (current >= dimension) {
+        stackSize = floodIfOpen(current - dimension, stackSize);
+      }
+      if (current < dimension * (dimension - 1)) {
+        stackSize = floodIfOpen(current + dimension, stackSize);
+      }
+    }
+  }
+
+  private int floodIfOpen(final int siteId, final int stackSize) {
+    if (!grid[siteId + 1] || isFullSite(siteId)) {
+      return stackSize;
+    }
+
+    markFull(siteId);
+    if (stackSize == floodStack.length) {
+      floodStack = Arrays.copyOf(floodStack, stackSize * 2);
+    }
+    floodStack[stackSize] = siteId;
+    return stackSize + 1;
+  }
+
+  private void markFull(final int siteId) {
+    fullSites[siteId / Long.SIZE] |= 1L << siteId;
+    if (listener != null) {
+      listener.siteFilled(siteId);
     }
   }
 
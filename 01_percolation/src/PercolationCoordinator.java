@@ -0,0 +1,52 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Shares a {@link PercolationStats} study among {@link PercolationWorker} processes through a
+ * spool directory, waits for them to perform all its ranges of trials, and prints the merged
+ * statistics. While waiting, it submits again the ranges of workers which have died, once their
+ * lease expires. Running it again on the same spool resumes the study.
+ */
+public class PercolationCoordinator {
+
+  private static final long POLL_MILLIS = 500;
+
+  // usage: spool N T rangeSize seed [engine [unionFind]]
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length < 5 || args.length > 7) {
+      throw new IllegalArgumentException("Wrong number of command line arguments");
+    }
+
+    final Path directory = Paths.get(args[0]);
+    final int N = Integer.parseInt(args[1]);
+    final int T = Integer.parseInt(args[2]);
+    final int rangeSize = Integer.parseInt(args[3]);
+    final long seed = Long.parseLong(args[4]);
+    final PercolationStats.Engine engine = args.length >= 6
+        ? PercolationStats.Engine.valueOf(args[5]) : PercolationStats.Engine.STANDARD;
+    final UnionFindStrategy unionFind =
+        args.length == 7 ? UnionFindStrategy.valueOf(args[6]) : UnionFindStrategy.WEIGHTED;
+
+    Files.createDirectories(directory);
+    final PercolationSpool spool = new PercolationSpool(directory);
+    spool.submit(N, T, rangeSize, seed, engine, unionFind);
+
+    RunningStatistics statistics;
+    while ((statistics = spool.collect()) == null) {
+      final int requeued = spool.requeueExpired();
+      if (requeued > 0) {
+        StdOut.printf("submitted %d expired ranges again\n", requeued);
+      }
+      Thread.sleep(POLL_MILLIS);
+    }
+
+    final PercolationStats percolationStats = PercolationStats.fromStatistics(N, statistics);
+    StdOut.printf("%-23s = %f\n", "mean", percolationStats.mean());
+    StdOut.printf("%-23s = %f\n", "stddev", percolationStats.stddev());
+    StdOut.printf("95%% confidence interval = %f, %f\n", percolationStats.confidenceLo(),
+        percolationStats.confidenceHi());
+  }
+
+}
@@ -0,0 +1,20 @@
+/**
+ * Receives the changes of the sites of a {@link Percolation}, e.g. to redraw only what changed.
+ */
+public interface PercolationListener {
+
+  /**
+   * Called when a blocked site has been opened.
+   * 
+   * @param siteId the id of the site
+   */
+  void siteOpened(int siteId);
+
+  /**
+   * Called when an open site has become full.
+   * 
+   * @param siteId the id of the site
+   */
+  void siteFilled(int siteId);
+
+}
@@ -0,0 +1,269 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Draws a {@link Percolation} incrementally: it listens to the changes of the sites and only
+ * repaints the sites that changed since the last frame, at most a given number of frames per
+ * second. It either draws with StdDraw, or into an offscreen image which can be written to files
+ * without a display.
+ * <p>
+ * Full sites are drawn in light blue, open sites (that aren't full) in white, and blocked sites in
+ * black, with site (1, 1) in the upper left-hand corner. The status line is below the grid.
+ */
+public class PercolationRenderer implements PercolationListener {
+
+  // not StdDraw's constants, which would open a window when loaded
+  private static final Color FULL_COLOR = new Color(103, 198, 243);
+  private static final Color OPEN_COLOR = Color.WHITE;
+  private static final Color BLOCKED_COLOR = Color.BLACK;
+  private static final Color STATUS_COLOR = Color.GREEN;
+
+  private static final Font STATUS_FONT = new Font("SansSerif", Font.PLAIN, 12);
+
+  // height of the status line, in sites for StdDraw and in pixels for images
+  private static final double STATUS_HEIGHT = 0.05;
+  private static final int STATUS_PIXELS = 20;
+
+  private static final long NANOS_PER_SECOND = 1000000000L;
+
+  private final Percolation percolation;
+  private final int dimension;
+  private final long minFrameNanos;
+
+  // offscreen image and its scale, null when drawing with StdDraw
+  private final BufferedImage image;
+  private final Graphics2D graphics;
+  private final int pixelsPerSite;
+
+  // sites changed since the last frame, each queued once
+  private final BitSet dirty = new BitSet();
+  private int[] dirtySites = new int[2];
+  private int dirtyCount;
+
+  private boolean repaintAll = true;
+  private boolean statusChanged = true;
+  private long lastFrame;
+
+  private PercolationRenderer(final Percolation percolation, final int dimension,
+      final int framesPerSecond, final int pixelsPerSite) {
+    if (framesPerSecond <= 0) {
+      throw new IllegalArgumentException("Frame rate must be positive");
+    }
+
+    this.percolation = percolation;
+    this.dimension = dimension;
+    this.minFrameNanos = NANOS_PER_SECOND / framesPerSecond;
+    this.pixelsPerSite = pixelsPerSite;
+
+    if (pixelsPerSite > 0) {
+      final int size = dimension * pixelsPerSite;
+      this.image = new BufferedImage(size, size + STATUS_PIXELS, BufferedImage.TYPE_INT_RGB);
+      this.graphics = image.createGraphics();
+      graphics.setFont(STATUS_FONT);
+    } else {
+      this.image = null;
+      this.graphics = null;
+    }
+
+    // the sites open already are drawn by the first repaint, which paints everything
+    percolation.setListener(this);
+    this.lastFrame = System.nanoTime() - minFrameNanos;
+  }
+
+  /**
+   * Creates a renderer drawing the N-by-N system with StdDraw, in animation mode.
+   * 
+   * @param percolation the system to draw, which is observed from now on
+   * @param dimension N
+   * @param framesPerSecond the maximum number of frames drawn per second
+   * @return the renderer
+   */
+  public static PercolationRenderer onScreen(final Percolation percolation, final int dimension,
+      final int framesPerSecond) {
+    StdDraw.show(0);
+    StdDraw.setXscale(0, dimension);
+    StdDraw.setYscale(-dimension * STATUS_HEIGHT, dimension);
+    StdDraw.setFont(STATUS_FONT);
+    return new PercolationRenderer(percolation, dimension, framesPerSecond, 0);
+  }
+
+  /**
+   * Creates a renderer drawing the N-by-N system into an offscreen image, which does not need a
+   * display.
+   * 
+   * @param percolation the system to draw, which is observed from now on
+   * @param dimension N
+   * @param pixelsPerSite the width and height of a site in the image
+   * @return the renderer
+   */
+  public static PercolationRenderer offScreen(final Percolation percolation, final int dimension,
+      final int pixelsPerSite) {
+    if (pixelsPerSite <= 0) {
+      throw new IllegalArgumentException("Size of the sites must be positive");
+    }
+    return new PercolationRenderer(percolation, dimension, Integer.MAX_VALUE, pixelsPerSite);
+  }
+
+  @Override
+  public void siteOpened(final int siteId) {
+    statusChanged = true;
+    markDirty(siteId);
+  }
+
+  @Override
+  public void siteFilled(final int siteId) {
+    markDirty(siteId);
+  }
+
+  /**
+   * Draws the changes since the last frame, unless there are none or the previous frame was drawn
+   * too recently.
+   * 
+   * @return true, iff a frame has been drawn
+   */
+  public boolean render() {
+    final long now = System.nanoTime();
+    if (!hasChanges() || now - lastFrame < minFrameNanos) {
+      return false;
+    }
+
+    lastFrame = now;
+    flush();
+    return true;
+  }
+
+  /**
+   * Draws the changes since the last frame, regardless of the frame rate.
+   */
+  public void flush() {
+    if (repaintAll) {
+      paintBackground();
+      for (int siteId = 0; siteId < dimension * dimension; siteId++) {
+        paintSite(siteId);
+      }
+      repaintAll = false;
+      dirty.clear();
+    } else {
+      for (int i = 0; i < dirtyCount; i++) {
+        paintSite(dirtySites[i]);
+        dirty.clear(dirtySites[i]);
+      }
+    }
+    dirtyCount = 0;
+
+    if (statusChanged) {
+      paintStatus();
+      statusChanged = false;
+    }
+
+    if (image == null) {
+      StdDraw.show(0);
+    }
+  }
+
+  /**
+   * Draws the pending changes and writes the offscreen image to the given file.
+   * 
+   * @param file the file, whose suffix gives the image format (png, gif, ...)
+   * @throws IOException if the file cannot be written
+   */
+  public void writeFrame(final File file) throws IOException {
+    if (image == null) {
+      throw new IllegalStateException("Only offscreen frames can be written to files");
+    }
+
+    flush();
+
+    final String name = file.getName();
+    final String format = name.substring(name.lastIndexOf('.') + 1);
+    if (!ImageIO.write(image, format, file)) {
+      throw new IOException("Unsupported image format: " + format);
+    }
+  }
+
+  private boolean hasChanges() {
+    return repaintAll || statusChanged || dirtyCount > 0;
+  }
+
+  private void markDirty(final int siteId) {
+    if (repaintAll || dirty.get(siteId)) {
+      return;
+    }
+
+    // repainting everything is cheaper than tracking most of the sites
+    if (dirtyCount == dimension * dimension / 2) {
+      repaintAll = true;
+      return;
+    }
+
+    dirty.set(siteId);
+    if (dirtyCount == dirtySites.length) {
+      final int[] grown = new int[dirtyCount * 2];
+      System.arraycopy(dirtySites, 0, grown, 0, dirtyCount);
+      dirtySites = grown;
+    }
+    dirtySites[dirtyCount++] = siteId;
+  }
+
+  private void paintSite(final int siteId) {
+    final int row = siteId / dimension + 1;
+    final int column = siteId % dimension + 1;
+
+    final Color color;
+    if (percolation.isFull(row, column)) {
+      color = FULL_COLOR;
+    } else if (percolation.isOpen(row, column)) {
+      color = OPEN_COLOR;
+    } else {
+      color = BLOCKED_COLOR;
+    }
+
+    if (image == null) {
+      StdDraw.setPenColor(color);
+      StdDraw.filledSquare(column - 0.5, dimension - row + 0.5, 0.45);
+    } else {
+      // leave a black border around sites that are large enough
+      final int border = pixelsPerSite / 10;
+      graphics.setColor(color);
+      graphics.fillRect((column - 1) * pixelsPerSite + border, (row - 1) * pixelsPerSite + border,
+          pixelsPerSite - 2 * border, pixelsPerSite - 2 * border);
+    }
+  }
+
+  private void paintStatus() {
+    final String status = percolation.numberOfOpenSites() + " open sites, "
+        + (percolation.percolates() ? "percolates" : "does not percolate");
+
+    if (image == null) {
+      final double height = dimension * STATUS_HEIGHT;
+      StdDraw.setPenColor(BLOCKED_COLOR);
+      StdDraw.filledRectangle(dimension / 2.0, -height / 2, dimension / 2.0, height / 2);
+      StdDraw.setPenColor(STATUS_COLOR);
+      StdDraw.textLeft(0, -height / 2, status);
+    } else {
+      final int top = dimension * pixelsPerSite;
+      graphics.setColor(BLOCKED_COLOR);
+      graphics.fillRect(0, top, image.getWidth(), STATUS_PIXELS);
+      graphics.setColor(STATUS_COLOR);
+      graphics.drawString(status, 2, top + STATUS_PIXELS - 5);
+    }
+  }
+
+  private void paintBackground() {
+    if (image == null) {
+      StdDraw.setPenColor(BLOCKED_COLOR);
+      StdDraw.filledSquare(dimension / 2.0, dimension / 2.0, dimension / 2.0);
+    } else {
+      graphics.setColor(BLOCKED_COLOR);
+      graphics.fillRect(0, 0, dimension * pixelsPerSite, dimension * pixelsPerSite);
+    }
+  }
+
+}
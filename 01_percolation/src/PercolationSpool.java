@@ -0,0 +1,362 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A spool directory through which a {@link PercolationCoordinator} shares the experiments of a
+ * {@link PercolationStats} study among {@link PercolationWorker} processes, on one host or on
+ * several hosts sharing the directory.
+ * <p>
+ * The coordinator writes the parameters of the study and one task file per range of trials.
+ * Workers claim a range by renaming its task file, which only one of them can do, perform its
+ * trials and write their running statistics to a result file. Since the random stream of every
+ * trial only depends on the seed and the index of the trial, the result of a range does not
+ * depend on the worker, and the coordinator merges the results in range order, so the statistics
+ * of a study only depend on its parameters.
+ * <p>
+ * A claim is a lease: the modification time of the claimed file is the last time the worker
+ * renewed it, and a range whose lease has not been renewed for {@link #LEASE_MILLIS} is taken to
+ * belong to a dead worker and is submitted again, while the ranges of live workers are left alone.
+ * Leases compare the clock of the host requeueing ranges with the modification times set by the
+ * workers, so the clocks of the hosts sharing a spool must agree to well within a lease.
+ * <p>
+ * Every file is written to a temporary name first and then renamed, so a crash never leaves a
+ * partial file behind, and a study can be resumed by submitting it again: the ranges with results
+ * are kept, and the ranges whose lease has expired are submitted again.
+ */
+public class PercolationSpool {
+
+  private static final String STUDY_FILE = "study.properties";
+  private static final String TASK_SUFFIX = ".task";
+  private static final String RUNNING_SUFFIX = ".running";
+  private static final String RESULT_SUFFIX = ".result";
+  private static final String TEMPORARY_SUFFIX = ".tmp";
+
+  // range-0000000042 is the range starting at trial 42
+  private static final String RANGE_FORMAT = "range-%010d";
+  private static final int RANGE_NAME_LENGTH = String.format(RANGE_FORMAT, 0).length();
+
+  /**
+   * The time after which the claim of a range that has not been renewed expires.
+   */
+  public static final long LEASE_MILLIS = 60_000;
+
+  /**
+   * The interval at which workers renew the claims of the ranges they perform.
+   */
+  public static final long RENEWAL_MILLIS = LEASE_MILLIS / 4;
+
+  private final Path directory;
+
+  // parameters of the study, loaded when first needed
+  private Properties study;
+
+  /**
+   * A range of trials claimed by a worker.
+   */
+  public final class Range {
+
+    private final int firstTrial;
+    private final int experimentCount;
+    private final Path claimedFile;
+
+    private Range(final int firstTrial, final int experimentCount, final Path claimedFile) {
+      this.firstTrial = firstTrial;
+      this.experimentCount = experimentCount;
+      this.claimedFile = claimedFile;
+    }
+
+    /**
+     * Returns the index of the first trial of the range in the study.
+     * 
+     * @return the first trial
+     */
+    public int firstTrial() {
+      return firstTrial;
+    }
+
+    /**
+     * Returns the number of trials of the range.
+     * 
+     * @return the number of trials
+     */
+    public int experimentCount() {
+      return experimentCount;
+    }
+
+    /**
+     * Performs the trials of the range.
+     * 
+     * @param pool the pool executing the trials, or null to execute them on the calling thread
+     * @return the running statistics of their thresholds
+     */
+    public RunningStatistics perform(final ForkJoinPool pool) {
+      return PercolationStats.runTrialRange(
+          Integer.parseInt(study.getProperty("dimension")), firstTrial, experimentCount,
+          Long.parseLong(study.getProperty("seed")), pool,
+          PercolationStats.Engine.valueOf(study.getProperty("engine")),
+          UnionFindStrategy.valueOf(study.getProperty("unionFind")));
+    }
+
+    /**
+     * Renews the lease of the range, which must be done at least every {@link #LEASE_MILLIS}
+     * while performing it.
+     * 
+     * @return true, iff the range was still claimed; false if its lease expired and it has been
+     *         submitted again
+     * @throws IOException if the spool cannot be written
+     */
+    public boolean renew() throws IOException {
+      return touchIfExists(claimedFile);
+    }
+
+  }
+
+  /**
+   * Uses the given directory as spool.
+   * 
+   * @param directory the spool directory, which must exist
+   */
+  public PercolationSpool(final Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Submits a study, or submits it again to resume it: a task is written for every range of
+   * trials without a result, except for the ranges claimed by workers whose lease is still valid.
+   * 
+   * @param dimension N
+   * @param experimentCount T
+   * @param rangeSize the number of trials per task
+   * @param seed the seed of the study
+   * @param engine the percolation system the trials are executed on
+   * @param unionFind the union-find implementation of the standard engine
+   * @throws IOException if the spool cannot be read or written
+   * @throws IllegalArgumentException if the spool holds another study
+   */
+  public void submit(final int dimension, final int experimentCount, final int rangeSize,
+      final long seed, final PercolationStats.Engine engine, final UnionFindStrategy unionFind)
+      throws IOException {
+    if (dimension <= 0 || experimentCount <= 0 || rangeSize <= 0) {
+      throw new IllegalArgumentException("Dimension, number of experiments and range size must "
+          + "be positive");
+    }
+
+    final Properties submitted = new Properties();
+    submitted.setProperty("dimension", Integer.toString(dimension));
+    submitted.setProperty("experimentCount", Integer.toString(experimentCount));
+    submitted.setProperty("rangeSize", Integer.toString(rangeSize));
+    submitted.setProperty("seed", Long.toString(seed));
+    submitted.setProperty("engine", engine.name());
+    submitted.setProperty("unionFind", unionFind.name());
+
+    final Path studyFile = directory.resolve(STUDY_FILE);
+    final boolean resumed = Files.exists(studyFile);
+    if (resumed && !loadStudy().equals(submitted)) {
+      throw new IllegalArgumentException(directory + " holds another study");
+    }
+
+    // ranges claimed by workers which have died
+    final Set<String> claimed = new HashSet<>();
+    requeueExpired(claimed);
+
+    for (int firstTrial = 0; firstTrial < experimentCount; firstTrial += rangeSize) {
+      final String range = String.format(RANGE_FORMAT, firstTrial);
+      final Path task = directory.resolve(range + TASK_SUFFIX);
+      if (Files.exists(directory.resolve(range + RESULT_SUFFIX)) || Files.exists(task)
+          || claimed.contains(range)) {
+        continue;
+      }
+
+      final int count = Math.min(rangeSize, experimentCount - firstTrial);
+      final Path temporary = directory.resolve(range + TASK_SUFFIX + TEMPORARY_SUFFIX);
+      Files.write(temporary, (firstTrial + " " + count).getBytes("US-ASCII"));
+      Files.move(temporary, task, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // written last, so workers which find no task once it exists are done
+    if (!resumed) {
+      final Path temporary = directory.resolve(STUDY_FILE + TEMPORARY_SUFFIX);
+      try (OutputStream out = Files.newOutputStream(temporary)) {
+        submitted.store(out, "Percolation study");
+      }
+      Files.move(temporary, studyFile, StandardCopyOption.ATOMIC_MOVE);
+      study = submitted;
+    }
+  }
+
+  /**
+   * Submits again the ranges whose claim has not been renewed for {@link #LEASE_MILLIS}, whose
+   * worker is taken to have died. The ranges of live workers are not computed twice.
+   * 
+   * @return the number of ranges submitted again
+   * @throws IOException if the spool cannot be read or written
+   */
+  public int requeueExpired() throws IOException {
+    return requeueExpired(new HashSet<String>());
+  }
+
+  // requeues the expired ranges, adds the names of the ranges still claimed
+  private int requeueExpired(final Set<String> claimed) throws IOException {
+    final long expiry = System.currentTimeMillis() - LEASE_MILLIS;
+    int requeued = 0;
+    try (DirectoryStream<Path> running =
+        Files.newDirectoryStream(directory, "*" + RUNNING_SUFFIX)) {
+      for (final Path file : running) {
+        final String range = file.getFileName().toString().substring(0, RANGE_NAME_LENGTH);
+        final FileTime renewed;
+        try {
+          renewed = Files.getLastModifiedTime(file);
+        } catch (NoSuchFileException e) {
+          // completed meanwhile
+          continue;
+        }
+
+        if (renewed.toMillis() < expiry
+            && moveIfExists(file, directory.resolve(range + TASK_SUFFIX))) {
+          ++requeued;
+        } else {
+          claimed.add(range);
+        }
+      }
+    }
+    return requeued;
+  }
+
+  /**
+   * Indicates whether a study has been submitted to the spool, i.e. all its tasks have been
+   * written.
+   * 
+   * @return true, iff the spool holds a study
+   */
+  public boolean isSubmitted() {
+    return Files.exists(directory.resolve(STUDY_FILE));
+  }
+
+  /**
+   * Claims a range of trials.
+   * 
+   * @param worker the name of the worker, unique among the workers of the spool
+   * @return the range claimed, or null if there is no range left to claim
+   * @throws IOException if the spool cannot be read or written
+   */
+  public Range claim(final String worker) throws IOException {
+    if (!isSubmitted()) {
+      return null;
+    }
+    loadStudy();
+
+    try (DirectoryStream<Path> tasks = Files.newDirectoryStream(directory, "*" + TASK_SUFFIX)) {
+      for (final Path task : tasks) {
+        final String range = task.getFileName().toString().substring(0, RANGE_NAME_LENGTH);
+        final Path claimed = directory.resolve(range + "." + worker + RUNNING_SUFFIX);
+        // the lease starts now, not when the task was written
+        if (!moveIfExists(task, claimed) || !touchIfExists(claimed)) {
+          // claimed by another worker, or expired at once
+          continue;
+        }
+
+        final String[] fields =
+            new String(Files.readAllBytes(claimed), "US-ASCII").trim().split(" ");
+        return new Range(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]), claimed);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Stores the result of a range of trials.
+   * 
+   * @param range the range claimed
+   * @param statistics the running statistics of its thresholds
+   * @throws IOException if the spool cannot be written
+   */
+  public void complete(final Range range, final RunningStatistics statistics) throws IOException {
+    final String name = String.format(RANGE_FORMAT, range.firstTrial) + RESULT_SUFFIX;
+    final Path temporary = directory.resolve(
+        range.claimedFile.getFileName().toString() + RESULT_SUFFIX + TEMPORARY_SUFFIX);
+
+    try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temporary))) {
+      out.writeLong(statistics.count());
+      out.writeDouble(statistics.mean());
+      out.writeDouble(statistics.squaredDeviations());
+    }
+
+    // a range submitted again may be completed twice, with the same result
+    Files.move(temporary, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+    Files.deleteIfExists(range.claimedFile);
+  }
+
+  /**
+   * Merges the results of all the ranges of the study, in range order.
+   * 
+   * @return the running statistics of the thresholds of the study, or null if some ranges have no
+   *         result yet
+   * @throws IOException if the spool cannot be read
+   */
+  public RunningStatistics collect() throws IOException {
+    final Properties submitted = loadStudy();
+    final int experimentCount = Integer.parseInt(submitted.getProperty("experimentCount"));
+    final int rangeSize = Integer.parseInt(submitted.getProperty("rangeSize"));
+
+    final RunningStatistics statistics = new RunningStatistics();
+    for (int firstTrial = 0; firstTrial < experimentCount; firstTrial += rangeSize) {
+      final Path result =
+          directory.resolve(String.format(RANGE_FORMAT, firstTrial) + RESULT_SUFFIX);
+      if (!Files.exists(result)) {
+        return null;
+      }
+
+      try (DataInputStream in = new DataInputStream(Files.newInputStream(result))) {
+        statistics.merge(new RunningStatistics(in.readLong(), in.readDouble(), in.readDouble()));
+      }
+    }
+    return statistics;
+  }
+
+  private Properties loadStudy() throws IOException {
+    if (study == null) {
+      final Properties loaded = new Properties();
+      try (InputStream in = Files.newInputStream(directory.resolve(STUDY_FILE))) {
+        loaded.load(in);
+      }
+      study = loaded;
+    }
+    return study;
+  }
+
+  // sets the modification time of the file to now, returns false if it has been renamed or deleted
+  private static boolean touchIfExists(final Path file) throws IOException {
+    try {
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+      return true;
+    } catch (NoSuchFileException e) {
+      return false;
+    }
+  }
+
+  // renames the file, returns false if it has been renamed or deleted meanwhile
+  private static boolean moveIfExists(final Path source, final Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+      return true;
+    } catch (NoSuchFileException | FileAlreadyExistsException e) {
+      return false;
+    }
+  }
+
+}
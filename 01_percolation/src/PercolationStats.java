@@ -1,24 +1,616 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
 public class PercolationStats {
 
-  private final double[] percolationThresholds;
+  // number of trials a fork-join task executes without splitting further
+  private static final int TRIALS_PER_TASK = 4;
+
+  // binomial terms below this fraction of the term at the mode are neglected
+  private static final double NEGLIGIBLE_BINOMIAL_TERM = 1e-15;
+
+  // quantile of the normal distribution for 95% confidence
+  private static final double CONFIDENCE_95 = 1.96;
+
+  // adaptive and resumable runs execute trials in batches of at most this size; adaptive runs
+  // never stop before this many trials, and size their later batches from the estimated number of
+  // trials still missing, but never below the minimum batch size
+  private static final int BATCH_SIZE = 256;
+  private static final int MIN_ADAPTIVE_EXPERIMENTS = 30;
+  private static final int MIN_BATCH_SIZE = 8;
+
+  /**
+   * The percolation systems the trials can be executed on.
+   */
+  public enum Engine {
+
+    // union-find with virtual-top and virtual-bottom nodes, full sites flooded incrementally
+    STANDARD {
+      @Override
+      PercolationSystem create(final int dimension, final UnionFindStrategy unionFind) {
+        return new Percolation(dimension, unionFind);
+      }
+    },
+
+    // single union-find, connection to the bottom tracked per root
+    COMPACT {
+      @Override
+      PercolationSystem create(final int dimension, final UnionFindStrategy unionFind) {
+        // has its own union-find
+        return new CompactPercolation(dimension);
+      }
+    };
+
+    abstract PercolationSystem create(int dimension, UnionFindStrategy unionFind);
+
+  }
+
+  /**
+   * The estimators of the threshold computed from each trial.
+   */
+  public enum Estimator {
+
+    // fraction of open sites at which the grid first percolates from top to bottom
+    PLAIN,
+
+    // average of the fractions at which the grid first crosses from top to bottom and from left
+    // to right, which have the same distribution: the two are far from perfectly correlated, so
+    // the variance of a trial drops by a factor of about 1.5 to 2, while opening sites until both
+    // crossings occur costs only a few percent more than until the first one
+    SYMMETRIZED
+
+  }
+
+  /**
+   * A trial which opens the sites of a system in random order, and returns the fraction of its
+   * sites open when it first percolates.
+   */
+  interface Simulation {
+
+    double execute(SplittableRandom random);
+
+  }
+
   private final int experimentCount;
+  private final int dimension;
+  private final int siteCount;
+  private final Engine engine;
+  private final UnionFindStrategy unionFind;
+  private final Estimator estimator;
+
+  private final double mean;
+  private final double stddev;
+
+  // variance of a single crossing over variance of the estimator, per site opened, 1 for the plain
+  // estimator
+  private final double varianceReduction;
+
+  // thresholds of the trials, null if only their statistics are kept; with the symmetrized
+  // estimator, the top-to-bottom crossings
+  private final double[] percolationThresholds;
+
+  // left-to-right crossings of the trials of the symmetrized estimator, null otherwise
+  private final double[] horizontalThresholds;
+
+  // number of open sites at which each trial first percolated, in ascending order
+  private int[] sortedPercolationSteps;
 
   /**
-   * Performs T independent experiments on an N-by-N grid.
+   * Performs T independent experiments on an N-by-N grid, on the calling thread. Every study draws
+   * a new seed from {@link StdRandom}.
    * 
    * @param dimension
    * @param experimentCount
    */
   public PercolationStats(int dimension, int experimentCount) {
+    this(dimension, experimentCount, TrialRunner.freshSeed(), null);
+  }
+
+  /**
+   * Performs T independent experiments on an N-by-N grid, spreading them across the given pool.
+   * Every trial draws its sites from its own random stream derived from the seed and the index of
+   * the trial, so the results are the same for a given seed whatever the parallelism of the pool.
+   * 
+   * @param dimension
+   * @param experimentCount
+   * @param seed the seed of the whole study
+   * @param pool the pool executing the trials, or null to execute them on the calling thread
+   */
+  public PercolationStats(int dimension, int experimentCount, long seed, ForkJoinPool pool) {
+    this(dimension, experimentCount, seed, pool, Engine.STANDARD);
+  }
+
+  /**
+   * Performs T independent experiments on an N-by-N grid, using the given percolation engine.
+   * 
+   * @param dimension
+   * @param experimentCount
+   * @param seed the seed of the whole study
+   * @param pool the pool executing the trials, or null to execute them on the calling thread
+   * @param engine the percolation system the trials are executed on
+   */
+  public PercolationStats(int dimension, int experimentCount, long seed, ForkJoinPool pool,
+      Engine engine) {
+    this(dimension, experimentCount, seed, pool, engine, UnionFindStrategy.WEIGHTED);
+  }
+
+  /**
+   * Performs T independent experiments on an N-by-N grid, using the given percolation engine and,
+   * for the engines which support it, the given kind of union-find.
+   * 
+   * @param dimension
+   * @param experimentCount
+   * @param seed the seed of the whole study
+   * @param pool the pool executing the trials, or null to execute them on the calling thread
+   * @param engine the percolation system the trials are executed on
+   * @param unionFind the union-find implementation of the standard engine
+   */
+  public PercolationStats(int dimension, int experimentCount, long seed, ForkJoinPool pool,
+      Engine engine, UnionFindStrategy unionFind) {
+    this(dimension, experimentCount, seed, pool, engine, unionFind, Estimator.PLAIN);
+  }
+
+  /**
+   * Performs T independent experiments on an N-by-N grid, using the given estimator of the
+   * threshold. The symmetrized estimator executes its trials on a {@link CrossingPercolation}.
+   * 
+   * @param dimension
+   * @param experimentCount
+   * @param seed the seed of the whole study
+   * @param pool the pool executing the trials, or null to execute them on the calling thread
+   * @param estimator the estimator of the threshold computed from each trial
+   * @see #varianceReduction()
+   */
+  public PercolationStats(int dimension, int experimentCount, long seed, ForkJoinPool pool,
+      Estimator estimator) {
+    this(dimension, experimentCount, seed, pool, Engine.STANDARD, UnionFindStrategy.WEIGHTED,
+        estimator);
+  }
+
+  // performs the trials of the study
+  private PercolationStats(int dimension, int experimentCount, long seed, ForkJoinPool pool,
+      Engine engine, UnionFindStrategy unionFind, Estimator estimator) {
+    checkArgument(engine != null, "Engine cannot be null");
+    checkArgument(unionFind != null, "Union-find strategy cannot be null");
+    checkArgument(estimator != null, "Estimator cannot be null");
     checkArgument(dimension > 0, "Dimension of the grid must be positive");
     checkArgument(experimentCount > 0, "Number of experiments must be positive");
 
     this.experimentCount = experimentCount;
+    this.dimension = dimension;
+    this.siteCount = dimension * dimension;
+    this.engine = engine;
+    this.unionFind = unionFind;
+    this.estimator = estimator;
     percolationThresholds = new double[experimentCount];
 
+    if (estimator == Estimator.PLAIN) {
+      horizontalThresholds = null;
+      runTrials(engineSimulation(), percolationThresholds, null, 0, experimentCount, seed,
+          pool);
+
+      this.mean = StdStats.mean(percolationThresholds);
+      this.stddev = StdStats.stddev(percolationThresholds);
+      this.varianceReduction = 1;
+      return;
+    }
+
+    horizontalThresholds = new double[experimentCount];
+    runTrials(null, percolationThresholds, horizontalThresholds, 0, experimentCount, seed, pool);
+
+    final RunningStatistics statistics = new RunningStatistics();
+    final RunningStatistics crossings = new RunningStatistics();
+    final RunningStatistics costs = new RunningStatistics();
     for (int i = 0; i < experimentCount; i++) {
-      percolationThresholds[i] = executeMonteCarloSimulation(dimension);
+      addSymmetrized(statistics, crossings, costs, percolationThresholds[i],
+          horizontalThresholds[i]);
+    }
+
+    this.mean = statistics.mean();
+    this.stddev = statistics.stddev();
+    this.varianceReduction = varianceReductionPerSite(statistics, crossings, costs);
+  }
+
+  // performs T trials of a simulation on systems of the given number of sites, which need not be
+  // a grid
+  private PercolationStats(int siteCount, int experimentCount, long seed, ForkJoinPool pool,
+      Simulation simulation) {
+    checkArgument(simulation != null, "Simulation cannot be null");
+    checkArgument(siteCount > 0, "Number of sites must be positive");
+    checkArgument(experimentCount > 0, "Number of experiments must be positive");
+
+    this.experimentCount = experimentCount;
+    this.dimension = 0;
+    this.siteCount = siteCount;
+    this.engine = null;
+    this.unionFind = null;
+    this.estimator = Estimator.PLAIN;
+    this.horizontalThresholds = null;
+    this.varianceReduction = 1;
+    percolationThresholds = new double[experimentCount];
+
+    runTrials(simulation, percolationThresholds, null, 0, experimentCount, seed, pool);
+
+    this.mean = StdStats.mean(percolationThresholds);
+    this.stddev = StdStats.stddev(percolationThresholds);
+  }
+
+  // performs trials until the confidence interval is narrow enough, keeping only running statistics
+  private PercolationStats(int dimension, Engine engine, UnionFindStrategy unionFind,
+      Estimator estimator, double halfWidth, int maxExperimentCount, long seed,
+      ForkJoinPool pool) {
+    checkArgument(engine != null, "Engine cannot be null");
+    checkArgument(unionFind != null, "Union-find strategy cannot be null");
+    checkArgument(estimator != null, "Estimator cannot be null");
+    checkArgument(dimension > 0, "Dimension of the grid must be positive");
+    checkArgument(halfWidth > 0, "Half-width of the confidence interval must be positive");
+    checkArgument(maxExperimentCount > 0, "Number of experiments must be positive");
+
+    this.dimension = dimension;
+    this.siteCount = dimension * dimension;
+    this.engine = engine;
+    this.unionFind = unionFind;
+    this.estimator = estimator;
+    this.percolationThresholds = null;
+    this.horizontalThresholds = null;
+
+    final RunningStatistics statistics = new RunningStatistics();
+    final RunningStatistics crossings = new RunningStatistics();
+    final RunningStatistics costs = new RunningStatistics();
+    final double[] batch = new double[Math.min(BATCH_SIZE, maxExperimentCount)];
+    final double[] horizontalBatch =
+        estimator == Estimator.PLAIN ? null : new double[batch.length];
+
+    // every trial of a batch is kept, and the size of a batch only depends on the trials before
+    // it, so the stopping point only depends on the seed
+    int trial = 0;
+    while (trial < maxExperimentCount && !isPrecise(statistics, halfWidth)) {
+      final int batchSize = Math.min(nextBatchSize(statistics, halfWidth, batch.length),
+          maxExperimentCount - trial);
+      runTrials(horizontalBatch == null ? engineSimulation() : null, batch, horizontalBatch, trial,
+          batchSize, seed, pool);
+
+      for (int i = 0; i < batchSize; i++) {
+        if (horizontalBatch == null) {
+          statistics.add(batch[i]);
+        } else {
+          addSymmetrized(statistics, crossings, costs, batch[i], horizontalBatch[i]);
+        }
+      }
+      trial += batchSize;
+    }
+
+    this.experimentCount = (int) statistics.count();
+    this.mean = statistics.mean();
+    this.stddev = statistics.stddev();
+    this.varianceReduction =
+        horizontalBatch == null ? 1 : varianceReductionPerSite(statistics, crossings, costs);
+  }
+
+  // performs the trials missing from the results file, appending them batch by batch
+  private PercolationStats(int dimension, int experimentCount, long seed, ForkJoinPool pool,
+      Engine engine, UnionFindStrategy unionFind, TrialResultsFile results) throws IOException {
+    checkArgument(engine != null, "Engine cannot be null");
+    checkArgument(unionFind != null, "Union-find strategy cannot be null");
+    checkArgument(experimentCount > 0, "Number of experiments must be positive");
+
+    this.experimentCount = experimentCount;
+    this.dimension = dimension;
+    this.siteCount = dimension * dimension;
+    this.engine = engine;
+    this.unionFind = unionFind;
+    this.estimator = Estimator.PLAIN;
+    this.horizontalThresholds = null;
+    this.varianceReduction = 1;
+    percolationThresholds = Arrays.copyOf(
+        results.readThresholds(Math.min(results.trialCount(), experimentCount)), experimentCount);
+
+    final double[] batch = new double[BATCH_SIZE];
+    for (int trial = results.trialCount(); trial < experimentCount; trial += BATCH_SIZE) {
+      final int batchSize = Math.min(BATCH_SIZE, experimentCount - trial);
+      runTrials(engineSimulation(), batch, null, trial, batchSize, seed, pool);
+      results.append(batch, batchSize);
+      System.arraycopy(batch, 0, percolationThresholds, trial, batchSize);
+    }
+
+    this.mean = StdStats.mean(percolationThresholds);
+    this.stddev = StdStats.stddev(percolationThresholds);
+  }
+
+  // statistics of thresholds computed before
+  private PercolationStats(int dimension, double[] percolationThresholds) {
+    checkArgument(percolationThresholds.length > 0, "Number of experiments must be positive");
+
+    this.experimentCount = percolationThresholds.length;
+    this.dimension = dimension;
+    this.siteCount = dimension * dimension;
+    this.engine = null;
+    this.unionFind = null;
+    this.estimator = Estimator.PLAIN;
+    this.horizontalThresholds = null;
+    this.varianceReduction = 1;
+    this.percolationThresholds = percolationThresholds;
+
+    this.mean = StdStats.mean(percolationThresholds);
+    this.stddev = StdStats.stddev(percolationThresholds);
+  }
+
+  // statistics of thresholds accumulated before
+  private PercolationStats(int dimension, RunningStatistics statistics) {
+    checkArgument(dimension > 0, "Dimension of the grid must be positive");
+    checkArgument(statistics.count() > 0, "Number of experiments must be positive");
+    checkArgument(statistics.count() <= Integer.MAX_VALUE, "Too many experiments");
+
+    this.experimentCount = (int) statistics.count();
+    this.dimension = dimension;
+    this.siteCount = dimension * dimension;
+    this.engine = null;
+    this.unionFind = null;
+    this.estimator = Estimator.PLAIN;
+    this.horizontalThresholds = null;
+    this.varianceReduction = 1;
+    this.percolationThresholds = null;
+
+    this.mean = statistics.mean();
+    this.stddev = statistics.stddev();
+  }
+
+  /**
+   * Performs a range of the experiments of a study, for example on behalf of a coordinator which
+   * shares the study among processes. Experiment i of the range is experiment firstTrial + i of
+   * the study, so the ranges of a study can be performed anywhere and merged in any grouping.
+   * 
+   * @param dimension
+   * @param firstTrial the index of the first experiment of the range in the study
+   * @param experimentCount the number of experiments of the range
+   * @param seed the seed of the whole study
+   * @param pool the pool executing the trials, or null to execute them on the calling thread
+   * @param engine the percolation system the trials are executed on
+   * @param unionFind the union-find implementation of the standard engine
+   * @return the running statistics of the thresholds of the range, in trial order
+   */
+  public static RunningStatistics runTrialRange(int dimension, int firstTrial,
+      int experimentCount, long seed, ForkJoinPool pool, Engine engine,
+      UnionFindStrategy unionFind) {
+    return runTrialRange(dimension, firstTrial, experimentCount, seed, pool, engine, unionFind,
+        Estimator.PLAIN);
+  }
+
+  /**
+   * Performs a range of the experiments of a study with the given estimator. Ranges are merged as
+   * the running statistics of plain thresholds, so only the plain estimator is supported.
+   * 
+   * @param dimension
+   * @param firstTrial the index of the first experiment of the range in the study
+   * @param experimentCount the number of experiments of the range
+   * @param seed the seed of the whole study
+   * @param pool the pool executing the trials, or null to execute them on the calling thread
+   * @param engine the percolation system the trials are executed on
+   * @param unionFind the union-find implementation of the standard engine
+   * @param estimator the estimator of the threshold computed from each trial
+   * @return the running statistics of the thresholds of the range, in trial order
+   * @throws IllegalArgumentException if the estimator is not the plain one
+   */
+  public static RunningStatistics runTrialRange(int dimension, int firstTrial,
+      int experimentCount, long seed, ForkJoinPool pool, Engine engine,
+      UnionFindStrategy unionFind, Estimator estimator) {
+    checkArgument(estimator == Estimator.PLAIN,
+        "Ranges of trials only support the plain estimator, not " + estimator);
+
+    checkArgument(engine != null, "Engine cannot be null");
+    checkArgument(unionFind != null, "Union-find strategy cannot be null");
+    checkArgument(dimension > 0, "Dimension of the grid must be positive");
+    checkArgument(firstTrial >= 0, "First trial cannot be negative");
+    checkArgument(experimentCount > 0, "Number of experiments must be positive");
+
+    final Simulation simulation = gridSimulation(dimension, engine, unionFind);
+    final double[] thresholds = new double[experimentCount];
+    TrialRunner.run(pool, seed, firstTrial, experimentCount, TRIALS_PER_TASK,
+        new TrialRunner.Trial() {
+          @Override
+          public void execute(final int index, final SplittableRandom random) {
+            thresholds[index] = simulation.execute(random);
+          }
+        });
+
+    // added in trial order, so the result does not depend on the pool
+    final RunningStatistics statistics = new RunningStatistics();
+    for (final double threshold : thresholds) {
+      statistics.add(threshold);
+    }
+    return statistics;
+  }
+
+  /**
+   * Returns the statistics of experiments performed elsewhere, such as the merged statistics of
+   * the ranges of a study. {@link #percolationProbability(double)} is not supported.
+   * 
+   * @param dimension
+   * @param statistics the running statistics of the thresholds of the experiments
+   * @return the statistics of the experiments
+   */
+  public static PercolationStats fromStatistics(int dimension, RunningStatistics statistics) {
+    return new PercolationStats(dimension, statistics);
+  }
+
+  /**
+   * Performs T independent experiments of the given simulation, such as the opening of the nodes
+   * of a graph, with the same per-trial random streams and statistics as the experiments on grids.
+   * {@link #percolationProbability(double)} convolves over the given number of sites.
+   * 
+   * @param siteCount the number of sites of a system
+   * @param experimentCount
+   * @param seed the seed of the whole study
+   * @param pool the pool executing the trials, or null to execute them on the calling thread
+   * @param simulation the experiment
+   * @return the statistics of the experiments
+   */
+  static PercolationStats ofSimulation(int siteCount, int experimentCount, long seed,
+      ForkJoinPool pool, Simulation simulation) {
+    return new PercolationStats(siteCount, experimentCount, seed, pool, simulation);
+  }
+
+  /**
+   * Performs T independent experiments on an N-by-N grid, keeping their results in the given file
+   * as they complete. If the file holds the results of a previous run with the same N and seed,
+   * only the missing experiments are performed, and the statistics are the same as those of an
+   * uninterrupted run.
+   * 
+   * @param dimension
+   * @param experimentCount
+   * @param seed the seed of the whole study
+   * @param pool the pool executing the trials, or null to execute them on the calling thread
+   * @param engine the percolation system the trials are executed on
+   * @param unionFind the union-find implementation of the standard engine
+   * @param file the results file, created if it does not exist
+   * @return the statistics of the experiments
+   * @throws IOException if the results file cannot be read or written
+   * @see TrialResultsFile
+   */
+  public static PercolationStats resumable(int dimension, int experimentCount, long seed,
+      ForkJoinPool pool, Engine engine, UnionFindStrategy unionFind, Path file)
+      throws IOException {
+    return resumable(dimension, experimentCount, seed, pool, engine, unionFind, Estimator.PLAIN,
+        file);
+  }
+
+  /**
+   * Performs T independent experiments on an N-by-N grid with the given estimator, keeping their
+   * results in the given file. Results files hold a single threshold per experiment, so only the
+   * plain estimator is supported.
+   * 
+   * @param dimension
+   * @param experimentCount
+   * @param seed the seed of the whole study
+   * @param pool the pool executing the trials, or null to execute them on the calling thread
+   * @param engine the percolation system the trials are executed on
+   * @param unionFind the union-find implementation of the standard engine
+   * @param estimator the estimator of the threshold computed from each trial
+   * @param file the results file, created if it does not exist
+   * @return the statistics of the experiments
+   * @throws IOException if the results file cannot be read or written
+   * @throws IllegalArgumentException if the estimator is not the plain one
+   * @see #resumable(int, int, long, ForkJoinPool, Engine, UnionFindStrategy, Path)
+   */
+  public static PercolationStats resumable(int dimension, int experimentCount, long seed,
+      ForkJoinPool pool, Engine engine, UnionFindStrategy unionFind, Estimator estimator,
+      Path file) throws IOException {
+    checkArgument(estimator == Estimator.PLAIN,
+        "Results files only support the plain estimator, not " + estimator);
+
+    try (TrialResultsFile results = TrialResultsFile.open(file, dimension, seed)) {
+      return new PercolationStats(dimension, experimentCount, seed, pool, engine, unionFind,
+          results);
+    }
+  }
+
+  /**
+   * Merges the results files of studies on the same N, with different seeds, into the statistics
+   * of all their experiments, without performing them again.
+   * 
+   * @param files the results files
+   * @return the statistics of the experiments in the files
+   * @throws IOException if a results file cannot be read
+   */
+  public static PercolationStats merge(Path... files) throws IOException {
+    if (files.length == 0) {
+      throw new IllegalArgumentException("There must be at least one results file");
     }
+
+    int dimension = 0;
+    final Set<Long> seeds = new HashSet<>();
+    double[] thresholds = new double[0];
+
+    for (final Path file : files) {
+      try (TrialResultsFile results = TrialResultsFile.open(file)) {
+        if (dimension == 0) {
+          dimension = results.dimension();
+        } else if (results.dimension() != dimension) {
+          throw new IllegalArgumentException(String.format(
+              "%s holds the trials of N = %s instead of %s", file, results.dimension(), dimension));
+        }
+
+        // the trials of a seed are the same in every file
+        if (!seeds.add(results.seed())) {
+          throw new IllegalArgumentException(String.format(
+              "%s holds the trials of seed %s again", file, results.seed()));
+        }
+
+        final int offset = thresholds.length;
+        thresholds = Arrays.copyOf(thresholds, offset + results.trialCount());
+        System.arraycopy(results.readThresholds(results.trialCount()), 0, thresholds, offset,
+            results.trialCount());
+      }
+    }
+
+    return new PercolationStats(dimension, thresholds);
+  }
+
+  /**
+   * Performs experiments on an N-by-N grid until the half-width of the 95% confidence interval
+   * drops to the given target, or the budget of experiments is spent. Only running statistics of
+   * the thresholds are kept, so the memory used does not depend on the number of experiments, but
+   * {@link #percolationProbability(double)} is not supported.
+   * 
+   * @param dimension
+   * @param halfWidth the target half-width of the 95% confidence interval
+   * @param maxExperimentCount the maximum number of experiments
+   * @param seed the seed of the whole study
+   * @param pool the pool executing the trials, or null to execute them on the calling thread
+   * @param engine the percolation system the trials are executed on
+   * @return the statistics of the experiments performed
+   */
+  public static PercolationStats withPrecision(int dimension, double halfWidth,
+      int maxExperimentCount, long seed, ForkJoinPool pool, Engine engine) {
+    return withPrecision(dimension, halfWidth, maxExperimentCount, seed, pool, engine,
+        UnionFindStrategy.WEIGHTED);
+  }
+
+  /**
+   * Performs experiments until the confidence interval is narrow enough, using the given kind of
+   * union-find for the engines which support it.
+   * 
+   * @param dimension
+   * @param halfWidth the target half-width of the 95% confidence interval
+   * @param maxExperimentCount the maximum number of experiments
+   * @param seed the seed of the whole study
+   * @param pool the pool executing the trials, or null to execute them on the calling thread
+   * @param engine the percolation system the trials are executed on
+   * @param unionFind the union-find implementation of the standard engine
+   * @return the statistics of the experiments performed
+   * @see #withPrecision(int, double, int, long, ForkJoinPool, Engine)
+   */
+  public static PercolationStats withPrecision(int dimension, double halfWidth,
+      int maxExperimentCount, long seed, ForkJoinPool pool, Engine engine,
+      UnionFindStrategy unionFind) {
+    return new PercolationStats(dimension, engine, unionFind, Estimator.PLAIN, halfWidth,
+        maxExperimentCount, seed, pool);
+  }
+
+  /**
+   * Performs experiments until the confidence interval is narrow enough, using the given estimator
+   * of the threshold. The less variance the estimator has, the fewer experiments it takes.
+   * 
+   * @param dimension
+   * @param halfWidth the target half-width of the 95% confidence interval
+   * @param maxExperimentCount the maximum number of experiments
+   * @param seed the seed of the whole study
+   * @param pool the pool executing the trials, or null to execute them on the calling thread
+   * @param estimator the estimator of the threshold computed from each trial
+   * @return the statistics of the experiments performed
+   * @see #withPrecision(int, double, int, long, ForkJoinPool, Engine)
+   * @see #varianceReduction()
+   */
+  public static PercolationStats withPrecision(int dimension, double halfWidth,
+      int maxExperimentCount, long seed, ForkJoinPool pool, Estimator estimator) {
+    return new PercolationStats(dimension, Engine.STANDARD, UnionFindStrategy.WEIGHTED, estimator,
+        halfWidth, maxExperimentCount, seed, pool);
   }
 
   /**
@@ -27,74 +619,330 @@ public class PercolationStats {
    * @return
    */
   public double mean() {
-    return StdStats.mean(percolationThresholds);
+    return mean;
   }
 
   // sample standard deviation of percolation threshold
   public double stddev() {
-    return StdStats.stddev(percolationThresholds);
+    return stddev;
   }
 
   // low endpoint of 95% confidence interval
   public double confidenceLo() {
-    return mean() - 1.96 * stddev() / Math.sqrt(experimentCount);
+    return mean() - CONFIDENCE_95 * stddev() / Math.sqrt(experimentCount);
   }
 
   // high endpoint of 95% confidence interval
   public double confidenceHi() {
-    return mean() + 1.96 * stddev() / Math.sqrt(experimentCount);
+    return mean() + CONFIDENCE_95 * stddev() / Math.sqrt(experimentCount);
+  }
+
+  /**
+   * Returns the number of experiments performed.
+   * 
+   * @return the number of experiments
+   */
+  public int experimentCount() {
+    return experimentCount;
+  }
+
+  /**
+   * Returns the estimator of the threshold computed from each experiment.
+   * 
+   * @return the estimator
+   */
+  public Estimator estimator() {
+    return estimator;
+  }
+
+  /**
+   * Returns how much variance the estimator saved for the same work: the variance of the fraction
+   * at which a single crossing occurs over the variance of the estimator, measured on the same
+   * experiments, and scaled by the number of sites a plain experiment opens over the number an
+   * experiment of the estimator opens. A symmetrized experiment keeps opening sites until both
+   * crossings occur, so it costs more than a plain one, and the factor is per site opened rather
+   * than per experiment: the plain estimator would have needed about this many times as many
+   * opened sites for the same confidence interval.
+   * 
+   * @return the variance reduction factor per site opened, 1 for the plain estimator
+   */
+  public double varianceReduction() {
+    return varianceReduction;
+  }
+
+  /**
+   * Estimates the probability that the grid percolates if every site is open independently with
+   * probability p. Following Newman and Ziff, the number of open sites at which each trial first
+   * percolated is convolved with the binomial distribution, so the same trials serve every p.
+   * 
+   * @param probability the occupation probability p
+   * @return the estimated probability of percolation at p
+   */
+  public double percolationProbability(final double probability) {
+    checkArgument(probability >= 0 && probability <= 1, "Probability must be between 0 and 1");
+    return convolveWithBinomial(getSortedPercolationSteps(), probability);
+  }
+
+  /**
+   * Estimates the probability of percolation for each of the given occupation probabilities.
+   * 
+   * @param probabilities the occupation probabilities
+   * @return the estimated probabilities of percolation, in the same order
+   * @see #percolationProbability(double)
+   */
+  public double[] percolationProbabilities(final double[] probabilities) {
+    final double[] result = new double[probabilities.length];
+    for (int i = 0; i < probabilities.length; i++) {
+      result[i] = percolationProbability(probabilities[i]);
+    }
+    return result;
+  }
+
+  private int[] getSortedPercolationSteps() {
+    if (percolationThresholds == null) {
+      throw new IllegalStateException("The thresholds of the experiments have not been kept");
+    }
+
+    if (sortedPercolationSteps == null) {
+      // both crossings of a symmetrized trial have the distribution of a percolation
+      final int[] steps =
+          new int[horizontalThresholds == null ? experimentCount : 2 * experimentCount];
+      for (int i = 0; i < experimentCount; i++) {
+        steps[i] = (int) Math.round(percolationThresholds[i] * siteCount);
+      }
+      if (horizontalThresholds != null) {
+        for (int i = 0; i < experimentCount; i++) {
+          steps[experimentCount + i] = (int) Math.round(horizontalThresholds[i] * siteCount);
+        }
+      }
+      Arrays.sort(steps);
+      sortedPercolationSteps = steps;
+    }
+    return sortedPercolationSteps;
   }
 
-  private void checkArgument(final boolean condition, final String message) {
+  // sum of B(n; N^2, p) * (fraction of trials percolated with at most n open sites)
+  private double convolveWithBinomial(final int[] steps, final double probability) {
+    if (probability == 0) {
+      return percolatedFraction(steps, 0);
+    }
+    if (probability == 1) {
+      return percolatedFraction(steps, siteCount);
+    }
+
+    // walk outwards from the mode, each term relative to the term at the mode
+    final double odds = probability / (1 - probability);
+    final int mode = (int) Math.min(siteCount, Math.floor((siteCount + 1) * probability));
+
+    double weightSum = 1;
+    double weightedSum = percolatedFraction(steps, mode);
+
+    double term = 1;
+    for (int n = mode; n < siteCount && term > NEGLIGIBLE_BINOMIAL_TERM; n++) {
+      term *= odds * (siteCount - n) / (n + 1);
+      weightSum += term;
+      weightedSum += term * percolatedFraction(steps, n + 1);
+    }
+
+    term = 1;
+    for (int n = mode; n > 0 && term > NEGLIGIBLE_BINOMIAL_TERM; n--) {
+      term *= n / (odds * (siteCount - n + 1));
+      weightSum += term;
+      weightedSum += term * percolatedFraction(steps, n - 1);
+    }
+
+    return weightedSum / weightSum;
+  }
+
+  // fraction of trials that percolated with at most the given number of open sites
+  private double percolatedFraction(final int[] steps, final int openSites) {
+    int lo = 0;
+    int hi = steps.length;
+    while (lo < hi) {
+      final int middle = (lo + hi) >>> 1;
+      if (steps[middle] <= openSites) {
+        lo = middle + 1;
+      } else {
+        hi = middle;
+      }
+    }
+    return (double) lo / steps.length;
+  }
+
+  private static void checkArgument(final boolean condition, final String message) {
     if (!condition) {
       throw new IllegalArgumentException(message);
     }
   }
 
-  // test client (described below)
-  public static void main(String[] args) {
+  // test client, usage: [-estimator ESTIMATOR] N T [threads [seed [engine [unionFind [file]]]]]
+  public static void main(String[] args) throws IOException {
     // final Stopwatch watch = new Stopwatch();
 
-    if (args.length != 2) {
+    // the estimator is an option, the other arguments are positional
+    Estimator estimator = Estimator.PLAIN;
+    if (args.length >= 2 && args[0].equals("-estimator")) {
+      estimator = Estimator.valueOf(args[1]);
+      args = Arrays.copyOfRange(args, 2, args.length);
+    }
+
+    if (args.length < 2 || args.length > 7) {
       throw new IllegalArgumentException("Wrong number of command line arguments");
     }
 
+    // the symmetrized estimator has its own engine, only threads and seed may follow N and T
+    checkArgument(estimator == Estimator.PLAIN || args.length <= 4,
+        "The estimator cannot be combined with an engine, a union-find or a results file");
+
     final int N = Integer.parseInt(args[0]);
     final int T = Integer.parseInt(args[1]);
 
-    final PercolationStats percolationStats = new PercolationStats(N, T);
+    final PercolationStats percolationStats;
+    if (args.length == 2) {
+      percolationStats = estimator == Estimator.PLAIN ? new PercolationStats(N, T)
+          : new PercolationStats(N, T, TrialRunner.freshSeed(), null, estimator);
+    } else {
+      // optional thread count, seed, engine, union-find and results file
+      final ForkJoinPool pool = new ForkJoinPool(Integer.parseInt(args[2]));
+      final long seed = args.length >= 4 ? Long.parseLong(args[3]) : StdRandom.getSeed();
+      final Engine engine = args.length >= 5 ? Engine.valueOf(args[4]) : Engine.STANDARD;
+      final UnionFindStrategy unionFind =
+          args.length >= 6 ? UnionFindStrategy.valueOf(args[5]) : UnionFindStrategy.WEIGHTED;
+      try {
+        if (args.length == 7) {
+          percolationStats =
+              resumable(N, T, seed, pool, engine, unionFind, estimator, Paths.get(args[6]));
+        } else if (estimator != Estimator.PLAIN) {
+          percolationStats = new PercolationStats(N, T, seed, pool, estimator);
+        } else {
+          percolationStats = new PercolationStats(N, T, seed, pool, engine, unionFind);
+        }
+      } finally {
+        pool.shutdown();
+      }
+    }
+
     StdOut.printf("%-23s = %f\n", "mean", percolationStats.mean());
     StdOut.printf("%-23s = %f\n", "stddev", percolationStats.stddev());
     StdOut.printf("95%% confidence interval = %f, %f\n", percolationStats.confidenceLo(),
         percolationStats.confidenceHi());
+    if (percolationStats.estimator() != Estimator.PLAIN) {
+      StdOut.printf("%-23s = %f (per site opened)\n", "variance reduction",
+          percolationStats.varianceReduction());
+    }
 
     // StdOut.printf("\nElapsed time: %f sec", watch.elapsedTime());
   }
 
-  private double executeMonteCarloSimulation(final int dimension) {
-    final Percolation percolation = new Percolation(dimension);
-    int openSites = 0;
+  private static boolean isPrecise(final RunningStatistics statistics, final double halfWidth) {
+    return statistics.count() >= MIN_ADAPTIVE_EXPERIMENTS
+        && CONFIDENCE_95 * statistics.stddev() / Math.sqrt(statistics.count()) <= halfWidth;
+  }
 
-    while (openSites < dimension || !percolation.percolates()) {
-      // choose a site (row i, column j) uniformly at random among all blocked sites
+  // the number of trials the current standard deviation says are still missing for the target,
+  // so that the last batch does not overshoot it by much
+  private static int nextBatchSize(final RunningStatistics statistics, final double halfWidth,
+      final int maxBatchSize) {
+    if (statistics.count() < MIN_ADAPTIVE_EXPERIMENTS) {
+      return Math.min(maxBatchSize, MIN_ADAPTIVE_EXPERIMENTS - (int) statistics.count());
+    }
+
+    final double ratio = CONFIDENCE_95 * statistics.stddev() / halfWidth;
+    final double missing = Math.ceil(ratio * ratio) - statistics.count();
+    return (int) Math.max(Math.min(missing, maxBatchSize), Math.min(MIN_BATCH_SIZE, maxBatchSize));
+  }
 
-      int randomI = 1;
-      int randomJ = 1;
-      boolean blockedSitefound = false;
+  // adds a symmetrized trial to the statistics of the estimator, to those of single crossings,
+  // and to those of its cost, the fraction of sites it opened to see both crossings
+  private static void addSymmetrized(final RunningStatistics statistics,
+      final RunningStatistics crossings, final RunningStatistics costs, final double vertical,
+      final double horizontal) {
+    statistics.add((vertical + horizontal) / 2);
+    crossings.add(vertical);
+    crossings.add(horizontal);
+    costs.add(Math.max(vertical, horizontal));
+  }
 
-      while (!blockedSitefound) {
-        randomI = StdRandom.uniform(dimension) + 1;
-        randomJ = StdRandom.uniform(dimension) + 1;
+  // the variance ratio of single crossings to the estimator, times the ratio of the sites a plain
+  // trial opens (until its crossing) to the sites a symmetrized trial opens (until both)
+  private static double varianceReductionPerSite(final RunningStatistics statistics,
+      final RunningStatistics crossings, final RunningStatistics costs) {
+    return crossings.variance() / statistics.variance() * crossings.mean() / costs.mean();
+  }
 
-        blockedSitefound = !percolation.isOpen(randomI, randomJ);
+  // executes the trials [firstTrial, firstTrial + count) of the simulation into results[0, count),
+  // or without a simulation the symmetrized trials, with their left-to-right crossings into
+  // horizontalResults[0, count)
+  private void runTrials(final Simulation simulation, final double[] results,
+      final double[] horizontalResults, final int firstTrial, final int count, final long seed,
+      final ForkJoinPool pool) {
+    TrialRunner.run(pool, seed, firstTrial, count, TRIALS_PER_TASK, new TrialRunner.Trial() {
+      @Override
+      public void execute(final int index, final SplittableRandom random) {
+        if (simulation != null) {
+          results[index] = simulation.execute(random);
+        } else {
+          executeCrossingSimulation(random, results, horizontalResults, index);
+        }
       }
+    });
+  }
+
+  // trial on a system of the engine of the study
+  private Simulation engineSimulation() {
+    return gridSimulation(dimension, engine, unionFind);
+  }
 
-      // open the site (row i, column j)
-      percolation.open(randomI, randomJ);
+  // trial on an N-by-N system of the given engine
+  private static Simulation gridSimulation(final int dimension, final Engine engine,
+      final UnionFindStrategy unionFind) {
+    return new Simulation() {
+      @Override
+      public double execute(final SplittableRandom random) {
+        return executeMonteCarloSimulation(dimension, engine, unionFind, random);
+      }
+    };
+  }
+
+  private static double executeMonteCarloSimulation(final int dimension, final Engine engine,
+      final UnionFindStrategy unionFind, final SplittableRandom random) {
+    final int siteCount = dimension * dimension;
+    final PercolationSystem percolation = engine.create(dimension, unionFind);
+    final SitePermutation sites = new SitePermutation(siteCount, random);
+    int openSites = 0;
+
+    while (openSites < dimension || !percolation.percolates()) {
+      // every site drawn from the permutation is a blocked one
+      percolation.openSite(sites.next());
+      ++openSites;
+    }
+
+    return (double) openSites / siteCount;
+  }
+
+  // opens sites until the grid crosses both ways, stores the fraction of each crossing
+  private void executeCrossingSimulation(final SplittableRandom random, final double[] results,
+      final double[] horizontalResults, final int i) {
+    final CrossingPercolation percolation = new CrossingPercolation(dimension);
+    final SitePermutation sites = new SitePermutation(siteCount, random);
+    int openSites = 0;
+    int vertical = 0;
+    int horizontal = 0;
+
+    while (vertical == 0 || horizontal == 0) {
+      percolation.openSite(sites.next());
       ++openSites;
+
+      if (vertical == 0 && percolation.percolates()) {
+        vertical = openSites;
+      }
+      if (horizontal == 0 && percolation.crossesHorizontally()) {
+        horizontal = openSites;
+      }
     }
 
-    return (double) openSites / (dimension * dimension);
+    results[i] = (double) vertical / siteCount;
+    horizontalResults[i] = (double) horizontal / siteCount;
   }
 
 }
@@ -0,0 +1,101 @@
+/**
+ * An N-by-N percolation system, in which sites are opened one by one. Rows and columns are
+ * numbered from 1 to N, site ids row by row from 0 to N*N - 1.
+ */
+public interface PercolationSystem {
+
+  /**
+   * The largest N for which the N*N sites and a few virtual nodes can be indexed by int. Larger
+   * grids are supported by {@link HugePercolation}.
+   */
+  int MAX_DIMENSION = 46340;
+
+  /**
+   * Checks the dimension of a grid whose sites are indexed by int.
+   * 
+   * @param dimension N
+   * @return the dimension
+   * @throws IllegalArgumentException if the dimension is not positive or exceeds
+   *         {@link #MAX_DIMENSION}
+   */
+  static int checkDimension(final int dimension) {
+    if (dimension <= 0) {
+      throw new IllegalArgumentException("Dimension of the grid must be positive");
+    }
+    if (dimension > MAX_DIMENSION) {
+      throw new IllegalArgumentException(String.format(
+          "Dimension of the grid cannot exceed %s, use HugePercolation instead", MAX_DIMENSION));
+    }
+    return dimension;
+  }
+
+  /**
+   * Opens site (row i, column j) if it is not open already
+   * 
+   * @param row
+   * @param column
+   */
+  void open(int row, int column);
+
+  /**
+   * Opens the site with the given id if it is not open already. Site (row i, column j) has id
+   * (i - 1) * N + (j - 1).
+   * 
+   * @param siteId the id of the site
+   */
+  void openSite(int siteId);
+
+  /**
+   * Opens the sites with the given ids, in order.
+   * 
+   * @param siteIds the ids of the sites
+   */
+  default void openAll(final int[] siteIds) {
+    openAll(siteIds, 0, siteIds.length);
+  }
+
+  /**
+   * Opens the sites with the given ids, in order. Systems which can open sites faster in bulk
+   * override it.
+   * 
+   * @param siteIds the ids of the sites
+   * @param offset the index of the first id to open
+   * @param length the number of ids to open
+   */
+  default void openAll(final int[] siteIds, final int offset, final int length) {
+    if (offset < 0 || length < 0 || offset > siteIds.length - length) {
+      throw new IndexOutOfBoundsException(String.format(
+          "Range [%s, %s) is outside the %s ids", offset, offset + length, siteIds.length));
+    }
+
+    for (int i = offset; i < offset + length; i++) {
+      openSite(siteIds[i]);
+    }
+  }
+
+  /**
+   * Checks whether the site (row i, column j) is open?
+   * 
+   * @param row
+   * @param column
+   * @return true, iff the site is already open
+   */
+  boolean isOpen(int row, int column);
+
+  /**
+   * Determines if site(row, column) full or not.
+   * 
+   * @param row
+   * @param column
+   * @return true, iff the site is open and connected to the top row through open sites
+   */
+  boolean isFull(int row, int column);
+
+  /**
+   * Indicates whether the system percolates.
+   * 
+   * @return true, iff the system percolates
+   */
+  boolean percolates();
+
+}
@@ -1,7 +1,8 @@
 /****************************************************************************
  *  Compilation:  javac PercolationVisualizer.java
- *  Execution:    java PercolationVisualizer input.txt
- *  Dependencies: Percolation.java StdDraw.java In.java
+ *  Execution:    java PercolationVisualizer input [directory [sitesPerFrame]]
+ *  Dependencies: Percolation.java PercolationRenderer.java OpeningLog.java
+ *                StdDraw.java In.java
  *
  *  This program takes the name of a file as a command-line argument.
  *  From that file, it
@@ -10,18 +11,35 @@
  *    - Creates an N-by-N grid of sites (intially all blocked)
  *    - Reads in a sequence of sites (row i, column j) to open.
  *
+ *  The file is either text or an opening log converted by OpeningLog,
+ *  whose sites are opened in batches straight from the mapped file.
+ *
  *  After each site is opened, it draws full sites in light blue,
  *  open sites (that aren't full) in white, and blocked sites in black,
  *  with with site (1, 1) in the upper left-hand corner.
  *
+ *  Only the sites that changed are redrawn, at most FRAMES_PER_SECOND
+ *  times per second. If a directory is given, no window is opened and
+ *  a PNG frame is written there every sitesPerFrame (default 1) sites.
+ *
  ****************************************************************************/
 
 import java.awt.Font;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public class PercolationVisualizer {
 
-    // delay in miliseconds (controls animation speed)
-    private static final int DELAY = 1;
+    // maximum number of frames drawn per second (controls animation speed)
+    private static final int FRAMES_PER_SECOND = 60;
+
+    // width and height of a site in the frames written to files
+    private static final int PIXELS_PER_SITE = 4;
+
+    // number of sites read and opened at once
+    private static final int SITES_PER_BATCH = 4096;
 
     // draw N-by-N percolation system
     public static void draw(Percolation perc, int N) {
@@ -58,24 +76,96 @@ public class PercolationVisualizer {
 
     }
 
-    public static void main(String[] args) {
-        In in = new In(args[0]);      // input file
-        int N = in.readInt();         // N-by-N percolation system
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args[0]);
+        In in = null;                 // text input file
+        OpeningLog log = null;        // binary input file
+        int N;                        // N-by-N percolation system
+        if (OpeningLog.isLog(file)) {
+            log = OpeningLog.open(file);
+            N = log.dimension();
+        }
+        else {
+            in = new In(args[0]);
+            N = in.readInt();
+        }
 
-        // turn on animation mode
-        StdDraw.show(0);
+        try {
+            if (args.length > 1) {
+                int sitesPerFrame = 1;
+                if (args.length > 2) sitesPerFrame = Integer.parseInt(args[2]);
+                writeFrames(in, log, N, new File(args[1]), sitesPerFrame);
+                return;
+            }
+
+            // repeatedly read in sites to open and draw the changes
+            Percolation perc = new Percolation(N);
+            PercolationRenderer renderer =
+                PercolationRenderer.onScreen(perc, N, FRAMES_PER_SECOND);
+            renderer.flush();
+            // text input is drawn site by site, logs batch by batch
+            int[] sites = new int[log != null ? SITES_PER_BATCH : 1];
+            int count;
+            while ((count = readSites(in, log, N, sites)) > 0) {
+                perc.openAll(sites, 0, count);
+                renderer.render();
+            }
+            renderer.flush();
+            System.out.println("Percolates:" + perc.percolates());
+        }
+        finally {
+            if (log != null) log.close();
+        }
+    }
 
-        // repeatedly read in sites to open and draw resulting system
+    // replay the sites to open offscreen, writing frame-00000.png, ...
+    private static void writeFrames(In in, OpeningLog log, int N, File directory,
+                                    int sitesPerFrame) throws IOException {
         Percolation perc = new Percolation(N);
-        draw(perc, N);
-        StdDraw.show(DELAY);
-        while (!in.isEmpty()) {
+        PercolationRenderer renderer =
+            PercolationRenderer.offScreen(perc, N, PIXELS_PER_SITE);
+        int frame = 0;
+        int opened = 0;
+        renderer.writeFrame(frameFile(directory, frame++));
+        int[] sites = new int[SITES_PER_BATCH];
+        int count;
+        while ((count = readSites(in, log, N, sites)) > 0) {
+            // open the batch in slices ending at frame boundaries
+            int from = 0;
+            while (from < count) {
+                int length = Math.min(count - from,
+                                      sitesPerFrame - opened % sitesPerFrame);
+                perc.openAll(sites, from, length);
+                from += length;
+                opened += length;
+                if (opened % sitesPerFrame == 0)
+                    renderer.writeFrame(frameFile(directory, frame++));
+            }
+        }
+        if (opened % sitesPerFrame != 0)
+            renderer.writeFrame(frameFile(directory, frame));
+        System.out.println("Percolates:" + perc.percolates());
+    }
+
+    // read the ids of the next sites to open from the log, or from the text
+    // file if there is no log; returns 0 at the end of the input
+    private static int readSites(In in, OpeningLog log, int N, int[] sites)
+        throws IOException {
+        if (log != null) return log.read(sites);
+
+        int count = 0;
+        while (count < sites.length && !in.isEmpty()) {
             int i = in.readInt();
             int j = in.readInt();
-            perc.open(i, j);
-            draw(perc, N);
-            StdDraw.show(DELAY);
+            if (i < 1 || i > N || j < 1 || j > N)
+                throw new IndexOutOfBoundsException(
+                    String.format("Index must be between 1 and %s", N));
+            sites[count++] = (i - 1) * N + (j - 1);
         }
-        System.out.println("Percolates:" + perc.percolates());
+        return count;
+    }
+
+    private static File frameFile(File directory, int frame) {
+        return new File(directory, String.format("frame-%05d.png", frame));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Performs the ranges of trials of the study in a spool directory, submitted by a
+ * {@link PercolationCoordinator}, until every range has a result. Any number of workers can share
+ * a spool. While performing a range, the worker renews its lease in the background, so that its
+ * range is only submitted again if the worker dies.
+ */
+public class PercolationWorker {
+
+  private static final long POLL_MILLIS = 500;
+
+  // usage: spool [threads]
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length < 1 || args.length > 2) {
+      throw new IllegalArgumentException("Wrong number of command line arguments");
+    }
+
+    final PercolationSpool spool = new PercolationSpool(Paths.get(args[0]));
+    final ForkJoinPool pool = new ForkJoinPool(
+        args.length == 2 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors());
+
+    // pid@host, unique among the workers of the hosts sharing the spool
+    final String worker = ManagementFactory.getRuntimeMXBean().getName();
+
+    final ScheduledExecutorService renewals = new ScheduledThreadPoolExecutor(1,
+        new ThreadFactory() {
+          @Override
+          public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "lease renewal");
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+
+    int rangeCount = 0;
+    try {
+      while (true) {
+        final PercolationSpool.Range range = spool.claim(worker);
+        if (range != null) {
+          final ScheduledFuture<?> renewal = renewals.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+              try {
+                range.renew();
+              } catch (IOException e) {
+                // retried at the next renewal, before the lease expires
+              }
+            }
+          }, PercolationSpool.RENEWAL_MILLIS, PercolationSpool.RENEWAL_MILLIS,
+              TimeUnit.MILLISECONDS);
+
+          final RunningStatistics statistics;
+          try {
+            statistics = range.perform(pool);
+          } finally {
+            renewal.cancel(false);
+          }
+          spool.complete(range, statistics);
+          ++rangeCount;
+        } else if (spool.isSubmitted() && spool.collect() != null) {
+          // every range has a result
+          break;
+        } else {
+          // the study has not been submitted yet, or other workers hold the ranges left, one of
+          // which may die and leave its range to be claimed once its lease expires
+          spool.requeueExpired();
+          Thread.sleep(POLL_MILLIS);
+        }
+      }
+    } finally {
+      pool.shutdown();
+      renewals.shutdown();
+    }
+
+    StdOut.printf("%s performed %d ranges\n", worker, rangeCount);
+  }
+
+}
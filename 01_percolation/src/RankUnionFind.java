@@ -0,0 +1,113 @@
+/**
+ * Union-find data structure with union by rank, and path halving, path splitting or full path
+ * compression. Ranks are at most log2(n), so they are kept in bytes.
+ */
+public class RankUnionFind implements UnionFind {
+
+  /**
+   * How the paths walked by finds are shortened.
+   */
+  public enum Compression {
+    HALVING, SPLITTING, FULL
+  }
+
+  private final int[] parent;
+  private final byte[] rank;
+  private final Compression compression;
+
+  /**
+   * Creates n singleton sets, numbered from 0 to n - 1.
+   * 
+   * @param n the number of sites
+   * @param compression how the find paths are shortened
+   */
+  public RankUnionFind(final int n, final Compression compression) {
+    if (n < 0) {
+      throw new IllegalArgumentException("Number of sites cannot be negative");
+    }
+    if (compression == null) {
+      throw new IllegalArgumentException("Compression cannot be null");
+    }
+
+    this.parent = new int[n];
+    this.rank = new byte[n];
+    this.compression = compression;
+
+    for (int i = 0; i < n; i++) {
+      parent[i] = i;
+    }
+  }
+
+  @Override
+  public int find(final int site) {
+    if (site < 0 || site >= parent.length) {
+      throw new IndexOutOfBoundsException(
+          String.format("Site must be between 0 and %s", parent.length - 1));
+    }
+
+    switch (compression) {
+      case HALVING:
+        return findHalving(site);
+      case SPLITTING:
+        return findSplitting(site);
+      default:
+        return findCompressing(site);
+    }
+  }
+
+  @Override
+  public void union(final int site, final int site2) {
+    final int root = find(site);
+    final int root2 = find(site2);
+    if (root == root2) {
+      return;
+    }
+
+    if (rank[root] < rank[root2]) {
+      parent[root] = root2;
+    } else if (rank[root] > rank[root2]) {
+      parent[root2] = root;
+    } else {
+      parent[root2] = root;
+      ++rank[root];
+    }
+  }
+
+  @Override
+  public boolean connected(final int site, final int site2) {
+    return find(site) == find(site2);
+  }
+
+  private int findHalving(int site) {
+    while (parent[site] != site) {
+      parent[site] = parent[parent[site]];
+      site = parent[site];
+    }
+    return site;
+  }
+
+  private int findSplitting(int site) {
+    while (parent[site] != site) {
+      final int next = parent[site];
+      parent[site] = parent[next];
+      site = next;
+    }
+    return site;
+  }
+
+  private int findCompressing(final int site) {
+    int root = site;
+    while (parent[root] != root) {
+      root = parent[root];
+    }
+
+    int current = site;
+    while (current != root) {
+      final int next = parent[current];
+      parent[current] = root;
+      current = next;
+    }
+    return root;
+  }
+
+}
@@ -0,0 +1,263 @@
+/**
+ * Represents a percolation system whose changes can be undone, to answer what-if queries against
+ * a base configuration: take a {@link #checkpoint()}, open a batch of sites, query the system, and
+ * {@link #rollback()} to the checkpoint in time proportional to the batch.
+ * <p>
+ * The union-find links by rank without path compression, so a union only changes the parent of one
+ * root and the state of another, which the undo log records while there is a checkpoint. Every
+ * root tells whether its component contains an open site of the first row and one of the last
+ * row, so {@link #isFull(int, int)} is a find, O(log N), and there is no backwash.
+ */
+public class RollbackPercolation implements PercolationSystem {
+
+  // bits of the state of a site, flags only maintained for roots; ranks are at most 31
+  private static final int OPEN = 1;
+  private static final int CONNECTED_TO_TOP = 2;
+  private static final int CONNECTED_TO_BOTTOM = 4;
+  private static final int CONNECTIONS = CONNECTED_TO_TOP | CONNECTED_TO_BOTTOM;
+  private static final int RANK_SHIFT = 3;
+
+  // kinds of undo log entries, stored above the site and the previous state
+  private static final long OPENED = 1L << 40;
+  private static final long LINKED = 2L << 40;
+  private static final long PERCOLATED = 3L << 40;
+  private static final long KIND_MASK = 3L << 40;
+  private static final int SITE_SHIFT = 8;
+  private static final int STATE_MASK = 0xFF;
+
+  private final int dimension;
+
+  // parent[i] = parent of site i in the union-find, never compressed
+  private final int[] parent;
+
+  // open bit, connection bits (only maintained for roots) and rank of each site
+  private final byte[] state;
+
+  private int openSitesCount;
+  private boolean percolates;
+
+  // undo log, only written while there is a checkpoint
+  private long[] log = new long[16];
+  private int logSize;
+
+  // log sizes at the checkpoints, most recent last
+  private int[] checkpoints = new int[4];
+  private int checkpointCount;
+
+  /**
+   * Creates an N-by-N grid, with all sites blocked (N = dimension)
+   * 
+   * @param dimension the dimension of the grid
+   */
+  public RollbackPercolation(final int dimension) {
+    this.dimension = PercolationSystem.checkDimension(dimension);
+    this.parent = new int[dimension * dimension];
+    this.state = new byte[dimension * dimension];
+
+    for (int i = 0; i < parent.length; i++) {
+      parent[i] = i;
+    }
+  }
+
+  @Override
+  public void open(final int row, final int column) {
+    checkIndices(row, column);
+    openSite((row - 1) * dimension + column - 1);
+  }
+
+  @Override
+  public void openSite(final int siteId) {
+    if (siteId < 0 || siteId >= parent.length) {
+      throw new IndexOutOfBoundsException(
+          String.format("Site id must be between 0 and %s", parent.length - 1));
+    }
+
+    if ((state[siteId] & OPEN) != 0) {
+      return;
+    }
+
+    // a site is still a singleton when it is opened
+    int siteState = OPEN;
+    if (siteId < dimension) {
+      siteState |= CONNECTED_TO_TOP;
+    }
+    if (siteId >= parent.length - dimension) {
+      siteState |= CONNECTED_TO_BOTTOM;
+    }
+    state[siteId] = (byte) siteState;
+    ++openSitesCount;
+    record(OPENED | (long) siteId << SITE_SHIFT);
+    checkPercolation(siteId);
+
+    final int column = siteId % dimension;
+
+    // left
+    if (column > 0) {
+      unionIfOpen(siteId, siteId - 1);
+    }
+
+    // right
+    if (column < dimension - 1) {
+      unionIfOpen(siteId, siteId + 1);
+    }
+
+    // top
+    if (siteId >= dimension) {
+      unionIfOpen(siteId, siteId - dimension);
+    }
+
+    // bottom
+    if (siteId < parent.length - dimension) {
+      unionIfOpen(siteId, siteId + dimension);
+    }
+  }
+
+  @Override
+  public boolean isOpen(final int row, final int column) {
+    checkIndices(row, column);
+    return (state[(row - 1) * dimension + column - 1] & OPEN) != 0;
+  }
+
+  @Override
+  public boolean isFull(final int row, final int column) {
+    checkIndices(row, column);
+    final int siteId = (row - 1) * dimension + column - 1;
+    return (state[siteId] & OPEN) != 0 && (state[find(siteId)] & CONNECTED_TO_TOP) != 0;
+  }
+
+  @Override
+  public boolean percolates() {
+    return percolates;
+  }
+
+  /**
+   * Returns the number of open sites.
+   * 
+   * @return the number of open sites
+   */
+  public int numberOfOpenSites() {
+    return openSitesCount;
+  }
+
+  /**
+   * Takes a checkpoint, which the changes from now on can be rolled back to. Checkpoints nest.
+   */
+  public void checkpoint() {
+    if (checkpointCount == checkpoints.length) {
+      final int[] grown = new int[checkpointCount * 2];
+      System.arraycopy(checkpoints, 0, grown, 0, checkpointCount);
+      checkpoints = grown;
+    }
+    checkpoints[checkpointCount++] = logSize;
+  }
+
+  /**
+   * Undoes the changes since the last checkpoint, and drops the checkpoint.
+   */
+  public void rollback() {
+    final int checkpoint = popCheckpoint();
+
+    while (logSize > checkpoint) {
+      final long entry = log[--logSize];
+      final int siteId = (int) ((entry & ~KIND_MASK) >>> SITE_SHIFT);
+
+      if ((entry & KIND_MASK) == OPENED) {
+        state[siteId] = 0;
+        --openSitesCount;
+      } else if ((entry & KIND_MASK) == LINKED) {
+        // the child is still directly under the root it was linked to
+        state[parent[siteId]] = (byte) (entry & STATE_MASK);
+        parent[siteId] = siteId;
+      } else {
+        percolates = false;
+      }
+    }
+  }
+
+  /**
+   * Keeps the changes since the last checkpoint, and drops the checkpoint. They are rolled back
+   * with those of the previous checkpoint, if any.
+   */
+  public void commit() {
+    popCheckpoint();
+    if (checkpointCount == 0) {
+      logSize = 0;
+    }
+  }
+
+  private int popCheckpoint() {
+    if (checkpointCount == 0) {
+      throw new IllegalStateException("There is no checkpoint");
+    }
+    return checkpoints[--checkpointCount];
+  }
+
+  private void record(final long entry) {
+    if (checkpointCount == 0) {
+      return;
+    }
+
+    if (logSize == log.length) {
+      final long[] grown = new long[logSize * 2];
+      System.arraycopy(log, 0, grown, 0, logSize);
+      log = grown;
+    }
+    log[logSize++] = entry;
+  }
+
+  private void checkIndices(final int row, final int column) {
+    if (row < 1 || row > dimension || column < 1 || column > dimension) {
+      throw new IndexOutOfBoundsException(
+          String.format("Index must be between 1 and %s", dimension));
+    }
+  }
+
+  private int find(int siteId) {
+    while (parent[siteId] != siteId) {
+      siteId = parent[siteId];
+    }
+    return siteId;
+  }
+
+  private void unionIfOpen(final int siteId, final int neighbourId) {
+    if ((state[neighbourId] & OPEN) == 0) {
+      return;
+    }
+
+    int root = find(siteId);
+    int child = find(neighbourId);
+    if (root == child) {
+      return;
+    }
+
+    if (rank(root) < rank(child)) {
+      final int swap = root;
+      root = child;
+      child = swap;
+    }
+
+    final int rootState = state[root] & STATE_MASK;
+    record(LINKED | (long) child << SITE_SHIFT | rootState);
+
+    int newState = rootState | (state[child] & CONNECTIONS);
+    if (rank(root) == rank(child)) {
+      newState += 1 << RANK_SHIFT;
+    }
+    parent[child] = root;
+    state[root] = (byte) newState;
+
+    checkPercolation(root);
+  }
+
+  private void checkPercolation(final int root) {
+    if (!percolates && (state[root] & CONNECTIONS) == CONNECTIONS) {
+      percolates = true;
+      record(PERCOLATED);
+    }
+  }
+
+  private int rank(final int root) {
+    return (state[root] & STATE_MASK) >>> RANK_SHIFT;
+  }
+
+}
@@ -0,0 +1,112 @@
+/**
+ * Accumulates the count, mean and variance of a stream of values in O(1) memory, using Welford's
+ * online algorithm. Accumulators of disjoint parts of a stream can be merged.
+ */
+public class RunningStatistics {
+
+  private long count;
+  private double mean;
+
+  // sum of squared differences from the current mean
+  private double squaredDeviations;
+
+  /**
+   * Creates an accumulator of no values.
+   */
+  public RunningStatistics() {
+    // nothing to do
+  }
+
+  /**
+   * Creates an accumulator from its state, as returned by {@link #count()}, {@link #mean()} and
+   * {@link #squaredDeviations()}.
+   * 
+   * @param count the number of values
+   * @param mean the mean of the values
+   * @param squaredDeviations the sum of squared differences of the values from their mean
+   */
+  public RunningStatistics(final long count, final double mean, final double squaredDeviations) {
+    if (count < 0) {
+      throw new IllegalArgumentException("Count cannot be negative");
+    }
+
+    this.count = count;
+    this.mean = mean;
+    this.squaredDeviations = squaredDeviations;
+  }
+
+  /**
+   * Adds a value.
+   * 
+   * @param value the value to add
+   */
+  public void add(final double value) {
+    ++count;
+    final double delta = value - mean;
+    mean += delta / count;
+    squaredDeviations += delta * (value - mean);
+  }
+
+  /**
+   * Adds all the values accumulated by another accumulator (Chan et al.).
+   * 
+   * @param other the accumulator to merge into this one
+   */
+  public void merge(final RunningStatistics other) {
+    if (other.count == 0) {
+      return;
+    }
+
+    final long total = count + other.count;
+    final double delta = other.mean - mean;
+    mean += delta * other.count / total;
+    squaredDeviations += other.squaredDeviations + delta * delta * count * other.count / total;
+    count = total;
+  }
+
+  /**
+   * Returns the number of values.
+   * 
+   * @return the number of values added
+   */
+  public long count() {
+    return count;
+  }
+
+  /**
+   * Returns the mean of the values.
+   * 
+   * @return the sample mean, NaN if there are no values
+   */
+  public double mean() {
+    return count == 0 ? Double.NaN : mean;
+  }
+
+  /**
+   * Returns the sum of squared differences of the values from their mean.
+   * 
+   * @return the sum of squared deviations
+   */
+  public double squaredDeviations() {
+    return squaredDeviations;
+  }
+
+  /**
+   * Returns the sample variance of the values.
+   * 
+   * @return the sample variance, NaN if there are less than two values
+   */
+  public double variance() {
+    return count < 2 ? Double.NaN : squaredDeviations / (count - 1);
+  }
+
+  /**
+   * Returns the sample standard deviation of the values.
+   * 
+   * @return the sample standard deviation, NaN if there are less than two values
+   */
+  public double stddev() {
+    return Math.sqrt(variance());
+  }
+
+}
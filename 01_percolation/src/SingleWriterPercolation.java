@@ -0,0 +1,366 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Represents a percolation system opened by a single writer thread and queried concurrently by
+ * any number of reader threads, which only block the writer to take a snapshot it keeps racing.
+ * <p>
+ * The writer only maintains two bit sets, the open sites and the full sites, flooding an open
+ * component into the full set when it first reaches the top (as {@link Percolation} does), and
+ * the system percolates once a site of the last row becomes full. Readers therefore never touch
+ * a union-find: {@link #isOpen(int, int)}, {@link #isFull(int, int)} and {@link #percolates()}
+ * are single volatile reads, and {@link #snapshot()} copies a consistent view of the whole grid,
+ * validated by a sequence number the writer makes odd while it updates the bit sets (seqlock).
+ * <p>
+ * A copy takes time linear in N*N, so a writer opening sites quickly could invalidate every copy of
+ * a large grid. After a few failed copies, a reader therefore asks the writer for a handoff: the
+ * writer then opens sites holding a lock, and the reader copies holding it, between two opens.
+ * The lock is fair, so the reader gets it at the latest after the open in progress.
+ */
+public class SingleWriterPercolation implements PercolationSystem {
+
+  private static final int INITIAL_FLOOD_CAPACITY = 16;
+
+  // copies a reader attempts without blocking the writer before asking for a handoff
+  private static final int OPTIMISTIC_ATTEMPTS = 4;
+
+  private final int dimension;
+
+  // bit i is set iff site i (0-based) is open / full
+  private final AtomicLongArray openSites;
+  private final AtomicLongArray fullSites;
+
+  // odd while the writer updates the bit sets, incremented twice by each open
+  private volatile long sequence;
+
+  private volatile boolean percolates;
+  private volatile int openSitesCount;
+
+  // held by the writer while opening a site and by a reader while copying, once a reader asked;
+  // fair, so that a writer opening sites in a tight loop cannot barge ahead of the waiting reader
+  private final ReentrantLock handoff = new ReentrantLock(true);
+  private final AtomicInteger handoffRequests = new AtomicInteger();
+
+  // sites marked full but not flooded from yet, grown to the largest frontier, only used by the
+  // writer
+  private int[] floodStack = new int[INITIAL_FLOOD_CAPACITY];
+
+  /**
+   * Creates an N-by-N grid, with all sites blocked (N = dimension)
+   * 
+   * @param dimension the dimension of the grid
+   */
+  public SingleWriterPercolation(final int dimension) {
+    this.dimension = PercolationSystem.checkDimension(dimension);
+
+    final int wordCount = (dimension * dimension + Long.SIZE - 1) / Long.SIZE;
+    this.openSites = new AtomicLongArray(wordCount);
+    this.fullSites = new AtomicLongArray(wordCount);
+  }
+
+  /**
+   * Opens site (row i, column j) if it is not open already. Must only be called by the writer.
+   * 
+   * @param row
+   * @param column
+   */
+  @Override
+  public void open(final int row, final int column) {
+    checkIndices(row, column);
+    openSite((row - 1) * dimension + column - 1);
+  }
+
+  /**
+   * Opens the site with the given id if it is not open already. Must only be called by the
+   * writer.
+   * 
+   * @param siteId the id of the site
+   */
+  @Override
+  public void openSite(final int siteId) {
+    if (siteId < 0 || siteId >= dimension * dimension) {
+      throw new IndexOutOfBoundsException(
+          String.format("Site id must be between 0 and %s", dimension * dimension - 1));
+    }
+
+    if (isSet(openSites, siteId)) {
+      return;
+    }
+
+    // a reader asking after this check waits for this open to complete, at most
+    final boolean handingOff = handoffRequests.get() > 0;
+    if (handingOff) {
+      handoff.lock();
+    }
+
+    // only the writer changes the sequence, so a plain increment is enough
+    sequence++;
+    try {
+      set(openSites, siteId);
+      openSitesCount++;
+
+      final int column = siteId % dimension;
+      if (siteId < dimension || hasFullNeighbour(siteId, column)) {
+        flood(siteId);
+      }
+    } finally {
+      sequence++;
+      if (handingOff) {
+        handoff.unlock();
+      }
+    }
+  }
+
+  @Override
+  public boolean isOpen(final int row, final int column) {
+    checkIndices(row, column);
+    return isSet(openSites, (row - 1) * dimension + column - 1);
+  }
+
+  @Override
+  public boolean isFull(final int row, final int column) {
+    checkIndices(row, column);
+    return isSet(fullSites, (row - 1) * dimension + column - 1);
+  }
+
+  @Override
+  public boolean percolates() {
+    return percolates;
+  }
+
+  /**
+   * Returns the number of open sites.
+   * 
+   * @return the number of open sites
+   */
+  public int numberOfOpenSites() {
+    return openSitesCount;
+  }
+
+  /**
+   * Returns the sequence number of the system, which changes whenever a site is opened, so that
+   * readers can cheaply tell whether anything changed.
+   * 
+   * @return the current sequence number, odd while a site is being opened
+   */
+  public long sequence() {
+    return sequence;
+  }
+
+  /**
+   * Copies a consistent view of the whole system, as it was between two opens. The copy is
+   * retried if the writer opened a site meanwhile; after a few retries, the writer waits for the
+   * copy to complete before its next open.
+   * 
+   * @return an immutable snapshot of the system
+   */
+  public Snapshot snapshot() {
+    final int wordCount = openSites.length();
+    final long[] open = new long[wordCount];
+    final long[] full = new long[wordCount];
+
+    for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+      final Snapshot snapshot = tryCopy(open, full);
+      if (snapshot != null) {
+        return snapshot;
+      }
+      Thread.yield();
+    }
+
+    handoffRequests.incrementAndGet();
+    try {
+      while (true) {
+        // only an open which started before the request can still be in progress
+        handoff.lock();
+        try {
+          final Snapshot snapshot = tryCopy(open, full);
+          if (snapshot != null) {
+            return snapshot;
+          }
+        } finally {
+          handoff.unlock();
+        }
+        Thread.yield();
+      }
+    } finally {
+      handoffRequests.decrementAndGet();
+    }
+  }
+
+  // copies the bit sets into the arrays, returns null if the writer opened a site meanwhile
+  private Snapshot tryCopy(final long[] open, final long[] full) {
+    final long before = sequence;
+    if ((before & 1) != 0) {
+      return null;
+    }
+
+    for (int i = 0; i < open.length; i++) {
+      open[i] = openSites.get(i);
+      full[i] = fullSites.get(i);
+    }
+    final boolean percolated = percolates;
+    final int openCount = openSitesCount;
+
+    if (sequence != before) {
+      return null;
+    }
+    return new Snapshot(dimension, before, open, full, percolated, openCount);
+  }
+
+  private void checkIndices(final int row, final int column) {
+    if (row < 1 || row > dimension || column < 1 || column > dimension) {
+      throw new IndexOutOfBoundsException(
+          String.format("Index must be between 1 and %s", dimension));
+    }
+  }
+
+  private boolean hasFullNeighbour(final int siteId, final int column) {
+    return (column > 0 && isSet(fullSites, siteId - 1))
+        || (column < dimension - 1 && isSet(fullSites, siteId + 1))
+        || (siteId >= dimension && isSet(fullSites, siteId - dimension))
+        || (siteId < dimension * (dimension - 1) && isSet(fullSites, siteId + dimension));
+  }
+
+  // marks the site and all the open sites reachable from it as full
+  private void flood(final int siteId) {
+    markFull(siteId);
+    floodStack[0] = siteId;
+    int stackSize = 1;
+
+    while (stackSize > 0) {
+      final int current = floodStack[--stackSize];
+      final int column = current % dimension;
+
+      if (column > 0) {
+        stackSize = floodIfOpen(current - 1, stackSize);
+      }
+      if (column < dimension - 1) {
+        stackSize = floodIfOpen(current + 1, stackSize);
+      }
+      if (current >= dimension) {
+        stackSize = floodIfOpen(current - dimension, stackSize);
+      }
+      if (current < dimension * (dimension - 1)) {
+        stackSize = floodIfOpen(current + dimension, stackSize);
+      }
+    }
+  }
+
+  private int floodIfOpen(final int siteId, final int stackSize) {
+    if (!isSet(openSites, siteId) || isSet(fullSites, siteId)) {
+      return stackSize;
+    }
+
+    markFull(siteId);
+    if (stackSize == floodStack.length) {
+      floodStack = Arrays.copyOf(floodStack, stackSize * 2);
+    }
+    floodStack[stackSize] = siteId;
+    return stackSize + 1;
+  }
+
+  private void markFull(final int siteId) {
+    set(fullSites, siteId);
+    if (!percolates && siteId >= dimension * (dimension - 1)) {
+      percolates = true;
+    }
+  }
+
+  private static boolean isSet(final AtomicLongArray bits, final int index) {
+    return (bits.get(index / Long.SIZE) & 1L << index) != 0;
+  }
+
+  // only the writer sets bits, so there is no need to compare-and-set
+  private static void set(final AtomicLongArray bits, final int index) {
+    final int word = index / Long.SIZE;
+    bits.set(word, bits.get(word) | 1L << index);
+  }
+
+  /**
+   * An immutable view of a {@link SingleWriterPercolation} between two opens.
+   */
+  public static final class Snapshot {
+
+    private final int dimension;
+    private final long sequence;
+    private final long[] openSites;
+    private final long[] fullSites;
+    private final boolean percolates;
+    private final int openSitesCount;
+
+    private Snapshot(final int dimension, final long sequence, final long[] openSites,
+        final long[] fullSites, final boolean percolates, final int openSitesCount) {
+      this.dimension = dimension;
+      this.sequence = sequence;
+      this.openSites = openSites;
+      this.fullSites = fullSites;
+      this.percolates = percolates;
+      this.openSitesCount = openSitesCount;
+    }
+
+    /**
+     * Returns the sequence number of the system when the snapshot was taken.
+     * 
+     * @return the sequence number, always even
+     */
+    public long sequence() {
+      return sequence;
+    }
+
+    /**
+     * Checks whether the site (row i, column j) was open.
+     * 
+     * @param row
+     * @param column
+     * @return true, iff the site was open
+     */
+    public boolean isOpen(final int row, final int column) {
+      return isSet(openSites, siteId(row, column));
+    }
+
+    /**
+     * Checks whether the site (row i, column j) was full.
+     * 
+     * @param row
+     * @param column
+     * @return true, iff the site was full
+     */
+    public boolean isFull(final int row, final int column) {
+      return isSet(fullSites, siteId(row, column));
+    }
+
+    /**
+     * Indicates whether the system percolated.
+     * 
+     * @return true, iff the system percolated
+     */
+    public boolean percolates() {
+      return percolates;
+    }
+
+    /**
+     * Returns the number of open sites.
+     * 
+     * @return the number of open sites
+     */
+    public int numberOfOpenSites() {
+      return openSitesCount;
+    }
+
+    private int siteId(final int row, final int column) {
+      if (row < 1 || row > dimension || column < 1 || column > dimension) {
+        throw new IndexOutOfBoundsException(
+            String.format("Index must be between 1 and %s", dimension));
+      }
+      return (row - 1) * dimension + column - 1;
+    }
+
+    private static boolean isSet(final long[] bits, final int index) {
+      return (bits[index / Long.SIZE] & 1L << index) != 0;
+    }
+
+  }
+
+}
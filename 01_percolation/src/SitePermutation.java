@@ -0,0 +1,62 @@
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Generates a uniformly random permutation of the site ids 0 to N-1, one id at a time. The
+ * permutation is produced lazily by a Fisher-Yates shuffle, so drawing k ids costs O(k) random
+ * numbers and every id drawn is a new one.
+ */
+public class SitePermutation {
+
+  private final int[] siteIds;
+  private final SplittableRandom random;
+
+  private int cursor;
+
+  /**
+   * Creates a permutation of the site ids 0 to N-1 (N = siteCount).
+   * 
+   * @param siteCount the number of sites
+   * @param random the source of randomness
+   */
+  public SitePermutation(final int siteCount, final SplittableRandom random) {
+    if (siteCount < 0) {
+      throw new IllegalArgumentException("Number of sites cannot be negative");
+    }
+
+    this.siteIds = new int[siteCount];
+    this.random = random;
+
+    for (int i = 0; i < siteCount; i++) {
+      siteIds[i] = i;
+    }
+  }
+
+  /**
+   * Indicates whether there are site ids left to draw.
+   * 
+   * @return true, iff not all the site ids have been drawn yet
+   */
+  public boolean hasNext() {
+    return cursor < siteIds.length;
+  }
+
+  /**
+   * Draws the next site id, chosen uniformly at random among the ones not drawn yet.
+   * 
+   * @return the next site id
+   */
+  public int next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException("All the sites have been drawn");
+    }
+
+    final int selected = cursor + random.nextInt(siteIds.length - cursor);
+    final int siteId = siteIds[selected];
+    siteIds[selected] = siteIds[cursor];
+    siteIds[cursor++] = siteId;
+
+    return siteId;
+  }
+
+}
@@ -0,0 +1,364 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Decides the percolation of a single N-by-N grid in parallel. The grid is split into horizontal
+ * bands, the connectivity of each band is labelled on its own core, and the components reaching
+ * the first or last row of a band are then merged across bands by a small union-find, which
+ * answers {@link #percolates()} and which sites are full.
+ * <p>
+ * Open sites are given as a bit set in which every row starts at a new word: site (row i,
+ * column j) is bit (j - 1) of the words [(i - 1) * W, i * W), where W = {@link #wordsPerRow(int)}.
+ */
+public class StripPercolation {
+
+  private static final int WORD_SHIFT = 6;
+
+  private final int dimension;
+  private final int wordsPerRow;
+  private final long[] openSites;
+
+  // band b covers the rows [bandStart[b], bandStart[b + 1]) (0-based)
+  private final int[] bandStart;
+
+  // union-find of each band in disjoint ranges of the array, indexed by site id; a root points
+  // to itself, or holds -(id + 1) if it is a boundary component with the given band-local id
+  private final int[] parent;
+
+  // merge union-find over the boundary components, offset by band
+  private final int[] boundaryOffset;
+  private final int[] boundaryParent;
+  private final boolean[] connectedToTop;
+  private final boolean[] connectedToBottom;
+
+  private boolean percolates;
+
+  /**
+   * Labels the given grid using the given number of bands.
+   * 
+   * @param dimension the dimension of the grid
+   * @param openSites the open sites, in the layout described above
+   * @param bandCount the number of bands the grid is split into
+   * @param pool the pool labelling the bands, or null to label them on the calling thread
+   */
+  public StripPercolation(final int dimension, final long[] openSites, final int bandCount,
+      final ForkJoinPool pool) {
+    checkArgument(dimension > 0, "Dimension of the grid must be positive");
+    checkArgument((long) dimension * dimension <= Integer.MAX_VALUE,
+        "Dimension of the grid is too large");
+    checkArgument(bandCount > 0, "Number of bands must be positive");
+    checkArgument(openSites.length == (long) dimension * wordsPerRow(dimension),
+        "Open sites do not match the dimension of the grid");
+
+    this.dimension = dimension;
+    this.wordsPerRow = wordsPerRow(dimension);
+    this.openSites = openSites;
+
+    final int bands = Math.min(bandCount, dimension);
+    this.bandStart = new int[bands + 1];
+    for (int b = 0; b <= bands; b++) {
+      bandStart[b] = (int) ((long) dimension * b / bands);
+    }
+
+    this.parent = new int[dimension * dimension];
+    final int[] boundaryCounts = new int[bands];
+    TrialRunner.forEach(pool, 0, bands, 1, new TrialRunner.IndexAction() {
+      @Override
+      public void compute(final int band) {
+        boundaryCounts[band] = labelBand(band);
+      }
+    });
+
+    this.boundaryOffset = new int[bands + 1];
+    for (int b = 0; b < bands; b++) {
+      boundaryOffset[b + 1] = boundaryOffset[b] + boundaryCounts[b];
+    }
+
+    final int boundaryCount = boundaryOffset[bands];
+    this.boundaryParent = new int[boundaryCount];
+    this.connectedToTop = new boolean[boundaryCount];
+    this.connectedToBottom = new boolean[boundaryCount];
+    mergeBands();
+  }
+
+  /**
+   * Fills an N-by-N grid at the given occupation probability and labels it. Every row is drawn
+   * from its own random stream, so the grid only depends on the seed, not on the bands.
+   * 
+   * @param dimension the dimension of the grid
+   * @param probability the probability of a site being open
+   * @param seed the seed of the random fill
+   * @param bandCount the number of bands the grid is split into
+   * @param pool the pool filling and labelling the bands, or null to use the calling thread
+   * @return the labelled grid
+   */
+  public static StripPercolation random(final int dimension, final double probability,
+      final long seed, final int bandCount, final ForkJoinPool pool) {
+    checkArgument(dimension > 0, "Dimension of the grid must be positive");
+    checkArgument(probability >= 0 && probability <= 1, "Probability must be between 0 and 1");
+
+    final int words = wordsPerRow(dimension);
+    final long[] openSites = new long[dimension * words];
+
+    TrialRunner.forEach(pool, 0, dimension, 1, new TrialRunner.IndexAction() {
+      @Override
+      public void compute(final int row) {
+        final SplittableRandom random = new SplittableRandom(TrialRunner.trialSeed(seed, row));
+        for (int column = 0; column < dimension; column++) {
+          if (random.nextDouble() < probability) {
+            openSites[row * words + (column >>> WORD_SHIFT)] |= 1L << column;
+          }
+        }
+      }
+    });
+
+    return new StripPercolation(dimension, openSites, bandCount, pool);
+  }
+
+  /**
+   * Returns the number of words a row takes in the bit set of sites.
+   * 
+   * @param dimension the dimension of the grid
+   * @return the number of longs per row
+   */
+  public static int wordsPerRow(final int dimension) {
+    return (dimension + (1 << WORD_SHIFT) - 1) >>> WORD_SHIFT;
+  }
+
+  /**
+   * Checks whether the site (row i, column j) is open?
+   * 
+   * @param row
+   * @param column
+   * @return true, iff the site is open
+   */
+  public boolean isOpen(final int row, final int column) {
+    checkIndices(row, column);
+    return isOpenSite(row - 1, column - 1);
+  }
+
+  /**
+   * Determines if site(row, column) full or not.
+   * 
+   * @param row
+   * @param column
+   * @return true, iff the site is open and connected to the top row through open sites
+   */
+  public boolean isFull(final int row, final int column) {
+    checkIndices(row, column);
+    return isOpenSite(row - 1, column - 1)
+        && isFullComponent(find((row - 1) * dimension + column - 1), bandOf(row - 1));
+  }
+
+  /**
+   * Indicates whether the system percolates.
+   * 
+   * @return true, iff the system percolates
+   */
+  public boolean percolates() {
+    return percolates;
+  }
+
+  /**
+   * Exports the full sites, in the same layout as the open sites.
+   * 
+   * @param pool the pool exporting the bands, or null to export them on the calling thread
+   * @return the bit set of full sites
+   */
+  public long[] fullSites(final ForkJoinPool pool) {
+    final long[] fullSites = new long[openSites.length];
+
+    TrialRunner.forEach(pool, 0, bandStart.length - 1, 1, new TrialRunner.IndexAction() {
+      @Override
+      public void compute(final int band) {
+        for (int row = bandStart[band]; row < bandStart[band + 1]; row++) {
+          for (int column = 0; column < dimension; column++) {
+            if (isOpenSite(row, column)
+                && isFullComponent(find(row * dimension + column), band)) {
+              fullSites[row * wordsPerRow + (column >>> WORD_SHIFT)] |= 1L << column;
+            }
+          }
+        }
+      }
+    });
+
+    return fullSites;
+  }
+
+  // test client
+  public static void main(String[] args) {
+    if (args.length < 2 || args.length > 4) {
+      throw new IllegalArgumentException("Wrong number of command line arguments");
+    }
+
+    final int N = Integer.parseInt(args[0]);
+    final double p = Double.parseDouble(args[1]);
+    final int threads = args.length >= 3 ? Integer.parseInt(args[2])
+        : Runtime.getRuntime().availableProcessors();
+    final long seed = args.length == 4 ? Long.parseLong(args[3]) : StdRandom.getSeed();
+
+    final ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      final StripPercolation percolation = StripPercolation.random(N, p, seed, threads, pool);
+      StdOut.println("Percolates: " + percolation.percolates());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  // labels the sites of a band, returns the number of its boundary components
+  private int labelBand(final int band) {
+    final int firstRow = bandStart[band];
+    final int lastRow = bandStart[band + 1] - 1;
+
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = 0; column < dimension; column++) {
+        if (!isOpenSite(row, column)) {
+          continue;
+        }
+
+        final int siteId = row * dimension + column;
+        parent[siteId] = siteId;
+
+        if (column > 0 && isOpenSite(row, column - 1)) {
+          union(siteId, siteId - 1);
+        }
+        if (row > firstRow && isOpenSite(row - 1, column)) {
+          union(siteId, siteId - dimension);
+        }
+      }
+    }
+
+    // number the components reaching the first or the last row of the band
+    int boundaryCount = 0;
+    for (int row = firstRow; row <= lastRow; row += Math.max(1, lastRow - firstRow)) {
+      for (int column = 0; column < dimension; column++) {
+        if (isOpenSite(row, column)) {
+          final int root = find(row * dimension + column);
+          if (parent[root] >= 0) {
+            parent[root] = -(++boundaryCount);
+          }
+        }
+      }
+    }
+    return boundaryCount;
+  }
+
+  // unions the boundary components of neighbouring bands
+  private void mergeBands() {
+    for (int i = 0; i < boundaryParent.length; i++) {
+      boundaryParent[i] = i;
+    }
+
+    final int bands = bandStart.length - 1;
+    for (int band = 0; band < bands; band++) {
+      final int firstRow = bandStart[band];
+      final int lastRow = bandStart[band + 1] - 1;
+
+      for (int column = 0; column < dimension; column++) {
+        if (band == 0 && isOpenSite(firstRow, column)) {
+          connectedToTop[boundaryId(firstRow * dimension + column, band)] = true;
+        }
+        if (band == bands - 1 && isOpenSite(lastRow, column)) {
+          connectedToBottom[boundaryId(lastRow * dimension + column, band)] = true;
+        }
+        if (band < bands - 1 && isOpenSite(lastRow, column) && isOpenSite(lastRow + 1, column)) {
+          unionBoundaries(boundaryId(lastRow * dimension + column, band),
+              boundaryId((lastRow + 1) * dimension + column, band + 1));
+        }
+      }
+    }
+
+    // flags are only set on roots after the unions above
+    for (int i = 0; i < boundaryParent.length; i++) {
+      final int root = findBoundary(i);
+      connectedToTop[root] |= connectedToTop[i];
+      connectedToBottom[root] |= connectedToBottom[i];
+    }
+    for (int i = 0; i < boundaryParent.length; i++) {
+      final int root = findBoundary(i);
+      percolates |= connectedToTop[root] && connectedToBottom[root];
+    }
+  }
+
+  // interior components of a band cannot reach the top
+  private boolean isFullComponent(final int root, final int band) {
+    return parent[root] < 0
+        && connectedToTop[findBoundary(boundaryOffset[band] - parent[root] - 1)];
+  }
+
+  private int boundaryId(final int siteId, final int band) {
+    return boundaryOffset[band] - parent[find(siteId)] - 1;
+  }
+
+  private boolean isOpenSite(final int row, final int column) {
+    return (openSites[row * wordsPerRow + (column >>> WORD_SHIFT)] & 1L << column) != 0;
+  }
+
+  private int bandOf(final int row) {
+    int lo = 0;
+    int hi = bandStart.length - 2;
+    while (lo < hi) {
+      final int middle = (lo + hi + 1) >>> 1;
+      if (bandStart[middle] <= row) {
+        lo = middle;
+      } else {
+        hi = middle - 1;
+      }
+    }
+    return lo;
+  }
+
+  // finds the root with path halving, roots either point to themselves or are negative
+  private int find(final int siteId) {
+    int current = siteId;
+    while (parent[current] >= 0 && parent[current] != current) {
+      final int next = parent[current];
+      if (parent[next] >= 0) {
+        parent[current] = parent[next];
+      }
+      current = next;
+    }
+    return current;
+  }
+
+  private void union(final int siteId, final int site2Id) {
+    final int root = find(siteId);
+    final int root2 = find(site2Id);
+    if (root != root2) {
+      // link to the smaller id, which is visited first while labelling
+      parent[Math.max(root, root2)] = Math.min(root, root2);
+    }
+  }
+
+  private int findBoundary(final int id) {
+    int current = id;
+    while (boundaryParent[current] != current) {
+      boundaryParent[current] = boundaryParent[boundaryParent[current]];
+      current = boundaryParent[current];
+    }
+    return current;
+  }
+
+  private void unionBoundaries(final int id, final int id2) {
+    final int root = findBoundary(id);
+    final int root2 = findBoundary(id2);
+    if (root != root2) {
+      boundaryParent[Math.max(root, root2)] = Math.min(root, root2);
+    }
+  }
+
+  private void checkIndices(final int row, final int column) {
+    if (row < 1 || row > dimension || column < 1 || column > dimension) {
+      throw new IndexOutOfBoundsException(
+          String.format("Index must be between 1 and %s", dimension));
+    }
+  }
+
+  private static void checkArgument(final boolean condition, final String message) {
+    if (!condition) {
+      throw new IllegalArgumentException(message);
+    }
+  }
+
+}
@@ -0,0 +1,253 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary file of the thresholds of the trials of a {@link PercolationStats} study, in trial order,
+ * so that an interrupted study can be resumed and finished studies merged without executing their
+ * trials again.
+ * <p>
+ * The file starts with a header (magic number, format version, N and the seed of the study),
+ * followed by one 8-byte threshold per trial. Since the random stream of every trial is derived
+ * from the seed and the index of the trial, the number of thresholds in the file is all the state
+ * a study needs to resume.
+ */
+public class TrialResultsFile implements Closeable {
+
+  // "PERC"
+  private static final int MAGIC = 0x50455243;
+  private static final int VERSION = 1;
+
+  // magic number, version and N as ints, then the seed as a long
+  private static final int HEADER_SIZE = 20;
+  private static final int RECORD_SIZE = 8;
+
+  // number of thresholds read or written at once
+  private static final int BUFFER_RECORDS = 1024;
+
+  private final FileChannel channel;
+  private final int dimension;
+  private final long seed;
+  private int trialCount;
+
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_RECORDS * RECORD_SIZE);
+
+  private TrialResultsFile(final FileChannel channel, final int dimension, final long seed,
+      final int trialCount) {
+    this.channel = channel;
+    this.dimension = dimension;
+    this.seed = seed;
+    this.trialCount = trialCount;
+  }
+
+  /**
+   * Opens the results file of a study to append to it, creating the file if it does not exist. A
+   * trailing threshold cut off by a crash is dropped.
+   * 
+   * @param file the file
+   * @param dimension N
+   * @param seed the seed of the study
+   * @return the results file
+   * @throws IOException if the file cannot be read or written, or is not a results file
+   * @throws IllegalArgumentException if the file belongs to a study with another N or seed
+   */
+  public static TrialResultsFile open(final Path file, final int dimension, final long seed)
+      throws IOException {
+    if (dimension <= 0) {
+      throw new IllegalArgumentException("Dimension of the grid must be positive");
+    }
+
+    final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      if (channel.size() == 0) {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(dimension).putLong(seed).flip();
+        writeFully(channel, header, 0);
+        channel.force(true);
+        return new TrialResultsFile(channel, dimension, seed, 0);
+      }
+
+      final TrialResultsFile results = read(channel, file);
+      if (results.dimension != dimension || results.seed != seed) {
+        throw new IllegalArgumentException(String.format(
+            "%s holds the trials of N = %s and seed %s", file, results.dimension, results.seed));
+      }
+      channel.truncate(HEADER_SIZE + (long) results.trialCount * RECORD_SIZE);
+      return results;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Opens the results file of a study to read it.
+   * 
+   * @param file the file
+   * @return the results file
+   * @throws IOException if the file cannot be read, or is not a results file
+   */
+  public static TrialResultsFile open(final Path file) throws IOException {
+    final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      return read(channel, file);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns N of the study.
+   * 
+   * @return the dimension of the grids
+   */
+  public int dimension() {
+    return dimension;
+  }
+
+  /**
+   * Returns the seed of the study.
+   * 
+   * @return the seed
+   */
+  public long seed() {
+    return seed;
+  }
+
+  /**
+   * Returns the number of trials in the file.
+   * 
+   * @return the number of thresholds
+   */
+  public int trialCount() {
+    return trialCount;
+  }
+
+  /**
+   * Reads the thresholds of the first trials.
+   * 
+   * @param count the number of trials to read
+   * @return their thresholds, in trial order
+   * @throws IOException if the file cannot be read
+   */
+  public double[] readThresholds(final int count) throws IOException {
+    if (count < 0 || count > trialCount) {
+      throw new IndexOutOfBoundsException(
+          String.format("Number of trials must be between 0 and %s", trialCount));
+    }
+
+    final double[] thresholds = new double[count];
+    long position = HEADER_SIZE;
+    for (int from = 0; from < count; from += BUFFER_RECORDS) {
+      final int records = Math.min(BUFFER_RECORDS, count - from);
+      buffer.clear().limit(records * RECORD_SIZE);
+      readFully(channel, buffer, position);
+      buffer.flip();
+      buffer.asDoubleBuffer().get(thresholds, from, records);
+      position += records * RECORD_SIZE;
+    }
+    return thresholds;
+  }
+
+  /**
+   * Appends the thresholds of the next trials, and forces them to the storage device so that they
+   * survive a crash.
+   * 
+   * @param thresholds the thresholds, in trial order
+   * @param count the number of thresholds to append
+   * @throws IOException if the file cannot be written
+   */
+  public void append(final double[] thresholds, final int count) throws IOException {
+    long position = HEADER_SIZE + (long) trialCount * RECORD_SIZE;
+    for (int from = 0; from < count; from += BUFFER_RECORDS) {
+      final int records = Math.min(BUFFER_RECORDS, count - from);
+      buffer.clear();
+      buffer.asDoubleBuffer().put(thresholds, from, records);
+      buffer.limit(records * RECORD_SIZE);
+      writeFully(channel, buffer, position);
+      position += records * RECORD_SIZE;
+    }
+
+    channel.force(false);
+    trialCount += count;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  // prints the statistics of the studies in the given files, merged
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      throw new IllegalArgumentException("Wrong number of command line arguments");
+    }
+
+    final Path[] files = new Path[args.length];
+    for (int i = 0; i < args.length; i++) {
+      files[i] = Paths.get(args[i]);
+    }
+
+    final PercolationStats percolationStats = PercolationStats.merge(files);
+    StdOut.printf("%-23s = %d\n", "trials", percolationStats.experimentCount());
+    StdOut.printf("%-23s = %f\n", "mean", percolationStats.mean());
+    StdOut.printf("%-23s = %f\n", "stddev", percolationStats.stddev());
+    StdOut.printf("95%% confidence interval = %f, %f\n", percolationStats.confidenceLo(),
+        percolationStats.confidenceHi());
+  }
+
+  private static TrialResultsFile read(final FileChannel channel, final Path file)
+      throws IOException {
+    if (channel.size() < HEADER_SIZE) {
+      throw new IOException(file + " is not a results file");
+    }
+
+    final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    readFully(channel, header, 0);
+    header.flip();
+
+    if (header.getInt() != MAGIC) {
+      throw new IOException(file + " is not a results file");
+    }
+    final int version = header.getInt();
+    if (version != VERSION) {
+      throw new IOException(String.format("%s has unsupported format version %s", file, version));
+    }
+
+    final int dimension = header.getInt();
+    final long seed = header.getLong();
+    final long trialCount = (channel.size() - HEADER_SIZE) / RECORD_SIZE;
+    if (trialCount > Integer.MAX_VALUE) {
+      throw new IOException(file + " has too many trials");
+    }
+    return new TrialResultsFile(channel, dimension, seed, (int) trialCount);
+  }
+
+  private static void readFully(final FileChannel channel, final ByteBuffer buffer,
+      final long position) throws IOException {
+    long offset = position;
+    while (buffer.hasRemaining()) {
+      final int read = channel.read(buffer, offset);
+      if (read < 0) {
+        throw new EOFException("Results file is shorter than its number of trials");
+      }
+      offset += read;
+    }
+  }
+
+  private static void writeFully(final FileChannel channel, final ByteBuffer buffer,
+      final long position) throws IOException {
+    long offset = position;
+    while (buffer.hasRemaining()) {
+      offset += channel.write(buffer, offset);
+    }
+  }
+
+}
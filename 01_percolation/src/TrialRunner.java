@@ -0,0 +1,143 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Executes the independent trials of a Monte Carlo study, on the calling thread or spread across a
+ * fork-join pool. Every trial draws from its own random stream, derived from the seed of the study
+ * and the index of the trial, so the results only depend on the seed, not on the parallelism of
+ * the pool or the order in which the trials are executed.
+ */
+final class TrialRunner {
+
+  // golden ratio increment of SplitMix64, used to derive per-trial seeds
+  private static final long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+
+  /**
+   * A trial, which stores its results by its index.
+   */
+  interface Trial {
+
+    void execute(int index, SplittableRandom random);
+
+  }
+
+  /**
+   * Work done for a single index of a range, such as a trial, a row or a band.
+   */
+  interface IndexAction {
+
+    void compute(int index);
+
+  }
+
+  private TrialRunner() {
+    // static methods only
+  }
+
+  /**
+   * Executes the trials [firstTrial, firstTrial + count) of a study. Trial firstTrial + i is
+   * executed with index i.
+   * 
+   * @param pool the pool executing the trials, or null to execute them on the calling thread
+   * @param seed the seed of the study
+   * @param firstTrial the index of the first trial in the study
+   * @param count the number of trials
+   * @param trialsPerTask the number of trials a fork-join task executes without splitting further
+   * @param trial the trial
+   */
+  static void run(final ForkJoinPool pool, final long seed, final int firstTrial, final int count,
+      final int trialsPerTask, final Trial trial) {
+    forEach(pool, 0, count, trialsPerTask, new IndexAction() {
+      @Override
+      public void compute(final int index) {
+        trial.execute(index, new SplittableRandom(trialSeed(seed, firstTrial + index)));
+      }
+    });
+  }
+
+  /**
+   * Executes the action for every index in [from, to), by recursively halving the range on the
+   * pool, or in order on the calling thread if there is no pool.
+   * 
+   * @param pool the pool executing the actions, or null to execute them on the calling thread
+   * @param from the first index
+   * @param to the index after the last one
+   * @param indicesPerTask the number of indices a fork-join task handles without splitting further
+   * @param action the action
+   */
+  static void forEach(final ForkJoinPool pool, final int from, final int to,
+      final int indicesPerTask, final IndexAction action) {
+    if (pool == null) {
+      // a task computed outside a pool would still fork its halves to the common pool
+      for (int i = from; i < to; i++) {
+        action.compute(i);
+      }
+      return;
+    }
+
+    if (from < to) {
+      pool.invoke(new RangeTask(action, from, to, Math.max(1, indicesPerTask)));
+    }
+  }
+
+  /**
+   * Returns the seed of the random stream of the given trial, independent of the order of
+   * execution.
+   * 
+   * @param seed the seed of the study
+   * @param trial the index of the trial in the study
+   * @return the seed of the trial
+   */
+  static long trialSeed(final long seed, final int trial) {
+    // SplitMix64 finalizer, so neighbouring trials do not get overlapping streams
+    long z = seed + (trial + 1L) * SEED_INCREMENT;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Draws the seed of a new study from {@link StdRandom}, so that every study gets fresh
+   * randomness, and {@link StdRandom#setSeed(long)} still makes a sequence of studies repeatable.
+   * 
+   * @return a new seed
+   */
+  static long freshSeed() {
+    return (long) StdRandom.uniform(Integer.MAX_VALUE) << 32 ^ StdRandom.uniform(Integer.MAX_VALUE);
+  }
+
+  // executes the action for every index in [from, to) by recursively halving the range
+  private static class RangeTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final IndexAction action;
+    private final int from;
+    private final int to;
+    private final int indicesPerTask;
+
+    RangeTask(final IndexAction action, final int from, final int to, final int indicesPerTask) {
+      this.action = action;
+      this.from = from;
+      this.to = to;
+      this.indicesPerTask = indicesPerTask;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= indicesPerTask) {
+        for (int i = from; i < to; i++) {
+          action.compute(i);
+        }
+        return;
+      }
+
+      final int middle = (from + to) >>> 1;
+      invokeAll(new RangeTask(action, from, middle, indicesPerTask),
+          new RangeTask(action, middle, to, indicesPerTask));
+    }
+
+  }
+
+}
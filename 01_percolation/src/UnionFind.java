@@ -0,0 +1,33 @@
+/**
+ * Union-find data structure over sites numbered from 0 to n - 1.
+ * 
+ * @see UnionFindStrategy
+ */
+public interface UnionFind {
+
+  /**
+   * Returns the root of the set containing the site.
+   * 
+   * @param site the site
+   * @return the root of its set
+   */
+  int find(int site);
+
+  /**
+   * Merges the sets containing the two sites.
+   * 
+   * @param site the first site
+   * @param site2 the second site
+   */
+  void union(int site, int site2);
+
+  /**
+   * Checks whether the two sites are in the same set.
+   * 
+   * @param site the first site
+   * @param site2 the second site
+   * @return true, iff the sites are connected
+   */
+  boolean connected(int site, int site2);
+
+}
@@ -0,0 +1,73 @@
+/**
+ * The union-find implementations a {@link Percolation} can be backed by, so that they can be
+ * compared on the same grids.
+ */
+public enum UnionFindStrategy {
+
+  // algs4's union by size, without path compression
+  WEIGHTED {
+    @Override
+    public UnionFind create(final int n) {
+      final WeightedQuickUnionUF unionFind = new WeightedQuickUnionUF(n);
+      return new UnionFind() {
+
+        @Override
+        public int find(final int site) {
+          return unionFind.find(site);
+        }
+
+        @Override
+        public void union(final int site, final int site2) {
+          unionFind.union(site, site2);
+        }
+
+        @Override
+        public boolean connected(final int site, final int site2) {
+          return unionFind.connected(site, site2);
+        }
+
+      };
+    }
+  },
+
+  // union by rank, every other site of a find path points to its grandparent
+  PATH_HALVING {
+    @Override
+    public UnionFind create(final int n) {
+      return new RankUnionFind(n, RankUnionFind.Compression.HALVING);
+    }
+  },
+
+  // union by rank, every site of a find path points to its grandparent
+  PATH_SPLITTING {
+    @Override
+    public UnionFind create(final int n) {
+      return new RankUnionFind(n, RankUnionFind.Compression.SPLITTING);
+    }
+  },
+
+  // union by rank, every site of a find path points to the root
+  PATH_COMPRESSION {
+    @Override
+    public UnionFind create(final int n) {
+      return new RankUnionFind(n, RankUnionFind.Compression.FULL);
+    }
+  },
+
+  // union by size and path halving, parent and size of a site next to each other in one array
+  INTERLEAVED {
+    @Override
+    public UnionFind create(final int n) {
+      return new InterleavedUnionFind(n);
+    }
+  };
+
+  /**
+   * Creates n singleton sets, numbered from 0 to n - 1.
+   * 
+   * @param n the number of sites
+   * @return the union-find
+   */
+  public abstract UnionFind create(int n);
+
+}
@@ -0,0 +1,417 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link RandomizedQueue} that can be used by many producers and consumers at once. The items
+ * are spread over shards, each an array guarded by its own lock, so threads working on different
+ * shards do not contend. A producer enqueues to the shard its thread is mapped to, or to the next
+ * unlocked one if that shard is busy. A consumer removes an item by moving the last item of its
+ * shard in its place. The random numbers come from {@link ThreadLocalRandom}, not from the shared
+ * {@link StdRandom}.
+ * <p>
+ * A consumer draws an item by rejection: it probes a random shard and a random index below a bound
+ * on the shard sizes, and takes the item at that index if the shard has one, or probes again. A
+ * probe reads the size of a single shard, so consumers do not read the sizes every producer
+ * writes, and the expected number of probes is the number of shards times the bound over the
+ * number of items. The bound is the largest size a shard reached, so it only grows while items are
+ * enqueued; after a few rejected probes in a row, the consumer weights the shards by their sizes
+ * instead, which costs a read of every shard, and sets the bound to the largest current size. When
+ * it lowers the bound, it reads the sizes again and raises the bound to their largest, since a
+ * shard may have grown past it meanwhile while its producer still read the old bound.
+ * When the items are so unevenly spread that probes are unlikely to succeed, as when a single
+ * thread produces them, consumers skip the probes until a weighted draw finds the shards even
+ * again, so a draw costs a read of every shard then.
+ * <p>
+ * Uniformity: when the queue is not modified during a draw, every item is chosen with probability
+ * 1/n, whatever the distribution of the n items across the shards, both by a probe and by the
+ * fallback. When other threads modify the queue concurrently, the sizes a draw relies on may
+ * already be outdated, so the draw is only uniform among the items of the chosen shard. In
+ * particular, a probe which reads the bound between a draw lowering it and raising it again may
+ * miss the indices of a shard which grew meanwhile; once the queue is quiet, the bound is at least
+ * every shard size again.
+ * <p>
+ * Iterators are weakly consistent: they return the items of each shard as they were when the
+ * iterator was created, in random order, and never throw
+ * {@link java.util.ConcurrentModificationException}.
+ * 
+ * @param <Item> the type of the elements stored in the queue
+ */
+public class ConcurrentRandomizedQueue<Item> implements Iterable<Item> {
+
+  private static final int DEFAULT_CAPACITY = 2;
+  private static final float SHRINK_FACTOR = 0.25f;
+
+  // largest number of shards, enough for the processors of any machine this runs on
+  private static final int MAX_SHARD_COUNT = 1 << 16;
+
+  // rejected probes in a row after which a draw weights the shards by their sizes
+  private static final int MAX_PROBES = 4;
+
+  // expected number of probes per draw above which consumers stop probing
+  private static final int MAX_EXPECTED_PROBES = 2;
+
+  private final Shard<Item>[] shards;
+  private final int mask;
+
+  // at least the size of every shard, except while a draw lowers it below a shard that grows
+  // meanwhile and raises it again; only written when exceeded or lowered by a draw
+  private final AtomicInteger sizeBound = new AtomicInteger();
+
+  // false while the items are so unevenly spread that probes are likely to be rejected, as when
+  // a single thread produces; only written when it changes
+  private volatile boolean probing = true;
+
+  /**
+   * Constructs an empty randomized queue with a shard per available processor, rounded up to a
+   * power of two.
+   */
+  public ConcurrentRandomizedQueue() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructs an empty randomized queue with at least the given number of shards. The number is
+   * rounded up to a power of two.
+   * 
+   * @param shardCount the minimum number of shards
+   * @throws IllegalArgumentException if shardCount is not positive or too large
+   */
+  public ConcurrentRandomizedQueue(final int shardCount) {
+    if (shardCount <= 0 || shardCount > MAX_SHARD_COUNT) {
+      throw new IllegalArgumentException(String.format(
+          "Number of shards must be between 1 and %s, got %s", MAX_SHARD_COUNT, shardCount));
+    }
+
+    final int count = Integer.highestOneBit(shardCount) == shardCount
+        ? shardCount : Integer.highestOneBit(shardCount) << 1;
+    shards = createShards(count);
+    mask = count - 1;
+  }
+
+  /**
+   * Indicates whether the queue is empty. The answer may be outdated as soon as it is returned.
+   * 
+   * @return true, iff the queue was empty
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Returns the number of items on the queue, reading the size of every shard. The answer may be
+   * outdated as soon as it is returned, and is not a snapshot if other threads modify the queue
+   * meanwhile.
+   * 
+   * @return the number of contained items
+   */
+  public int size() {
+    int size = 0;
+    for (final Shard<Item> shard : shards) {
+      size += shard.size;
+    }
+    return size;
+  }
+
+  /**
+   * Returns the number of shards the items are spread over.
+   * 
+   * @return the number of shards, a power of two
+   */
+  public int shardCount() {
+    return shards.length;
+  }
+
+  /**
+   * Adds an item to the shard of the calling thread, or to another shard if that one is locked.
+   * 
+   * @param item the element to insert
+   */
+  public void enqueue(final Item item) {
+    if (item == null) {
+      throw new NullPointerException("Cannot add null to the queue");
+    }
+
+    final int home = homeShardIndex();
+    for (int i = 0; i < shards.length; i++) {
+      final Shard<Item> shard = shards[(home + i) & mask];
+      if (shard.lock.tryLock()) {
+        try {
+          raiseSizeBound(shard.add(item));
+          return;
+        } finally {
+          shard.lock.unlock();
+        }
+      }
+    }
+
+    // every shard is busy, wait for the own one
+    final Shard<Item> shard = shards[home];
+    shard.lock.lock();
+    try {
+      raiseSizeBound(shard.add(item));
+    } finally {
+      shard.lock.unlock();
+    }
+  }
+
+  /**
+   * Deletes and returns a random item.
+   * 
+   * @return a random item that is being removed from the queue
+   * @throws NoSuchElementException if the queue was found empty
+   */
+  public Item dequeue() {
+    return take(true);
+  }
+
+  /**
+   * Returns a random item, without removing it.
+   * 
+   * @return a random item of the queue
+   * @throws NoSuchElementException if the queue was found empty
+   */
+  public Item sample() {
+    return take(false);
+  }
+
+  // return an independent, weakly consistent iterator over items in random order
+  @Override
+  public Iterator<Item> iterator() {
+    return new RandomizedQueueIterator();
+  }
+
+  // the shard a thread enqueues to first, spreading consecutive thread ids over the shards
+  private int homeShardIndex() {
+    long h = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+    h ^= h >>> 32;
+    return (int) h & mask;
+  }
+
+  // draws a uniformly random item, removing it or not
+  private Item take(final boolean remove) {
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+    int probes = 0;
+    while (true) {
+      final Shard<Item> shard;
+      final int drawnIndex;
+      final int bound = sizeBound.get();
+      if (bound > 0 && probes < MAX_PROBES && probing) {
+        ++probes;
+        shard = shards[random.nextInt() & mask];
+        drawnIndex = random.nextInt(bound);
+        if (drawnIndex >= shard.size) {
+          // rejected without locking
+          continue;
+        }
+      } else {
+        probes = 0;
+        shard = drawShard(random, bound);
+        drawnIndex = -1;
+      }
+
+      shard.lock.lock();
+      try {
+        // the shard may have shrunk since it was drawn
+        final int size = shard.size;
+        final int index = drawnIndex < 0 && size != 0 ? random.nextInt(size) : drawnIndex;
+        if (index >= 0 && index < size) {
+          return remove ? shard.remove(index) : shard.items[index];
+        }
+      } finally {
+        shard.lock.unlock();
+      }
+    }
+  }
+
+  // draws a shard with probability proportional to its size, and lowers the bound of the sizes
+  private Shard<Item> drawShard(final ThreadLocalRandom random, final int bound) {
+    // a single pass: each shard replaces the one drawn so far with probability size / total
+    Shard<Item> drawn = null;
+    int size = 0;
+    int largest = 0;
+    for (final Shard<Item> shard : shards) {
+      final int shardSize = shard.size;
+      if (shardSize != 0) {
+        size += shardSize;
+        largest = Math.max(largest, shardSize);
+        if (random.nextInt(size) < shardSize) {
+          drawn = shard;
+        }
+      }
+    }
+    if (drawn == null) {
+      throw new NoSuchElementException("Queue is empty");
+    }
+
+    if (largest >= bound) {
+      // a producer may have grown a shard past the bound it read
+      raiseSizeBound(largest);
+    } else if (sizeBound.compareAndSet(bound, largest)) {
+      // a producer which grew a shard after the scan may have read the bound before it was lowered
+      // and left it; the size is written before the bound is read, and the bound before the sizes
+      // are read again, so either the producer or this scan sees the other's write
+      raiseSizeBound(largestShardSize());
+    }
+
+    // a probe succeeds with probability size / (shards * largest)
+    final boolean even = (long) shards.length * largest <= (long) MAX_EXPECTED_PROBES * size;
+    if (probing != even) {
+      probing = even;
+    }
+    return drawn;
+  }
+
+  private int largestShardSize() {
+    int largest = 0;
+    for (final Shard<Item> shard : shards) {
+      largest = Math.max(largest, shard.size);
+    }
+    return largest;
+  }
+
+  private void raiseSizeBound(final int shardSize) {
+    int bound = sizeBound.get();
+    while (shardSize > bound && !sizeBound.compareAndSet(bound, shardSize)) {
+      bound = sizeBound.get();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> Shard<T>[] createShards(final int count) {
+    final Shard<T>[] shards = (Shard<T>[]) new Shard<?>[count];
+    for (int i = 0; i < count; i++) {
+      shards[i] = new Shard<>();
+    }
+    return shards;
+  }
+
+  // cache lines before the size of a shard, the fields of a superclass come first
+  @SuppressWarnings("unused")
+  private static class PaddingBeforeSize {
+
+    private long p1, p2, p3, p4, p5, p6, p7;
+
+  }
+
+  // the size of a shard, read by consumers probing it without its lock
+  private static class ShardSize extends PaddingBeforeSize {
+
+    // volatile so that the shards can be probed without locking them
+    protected volatile int size;
+
+  }
+
+  // cache lines after the size, so that writing it does not invalidate the neighbouring shards
+  @SuppressWarnings("unused")
+  private static class PaddingAfterSize extends ShardSize {
+
+    private long p9, p10, p11, p12, p13, p14, p15;
+
+  }
+
+  // items of one shard, only accessed with its lock held except for the size
+  private static final class Shard<T> extends PaddingAfterSize {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private T[] items = createArray(DEFAULT_CAPACITY);
+
+    // returns the new size
+    int add(final T item) {
+      if (size == items.length) {
+        items = Arrays.copyOf(items, items.length * 2);
+      }
+      items[size] = item;
+      size = size + 1;
+      return size;
+    }
+
+    // the last item takes the place of the removed one
+    T remove(final int index) {
+      final int lastIndex = size - 1;
+      final T removedItem = items[index];
+      items[index] = items[lastIndex];
+      items[lastIndex] = null; // avoid loitering
+      size = lastIndex;
+
+      final int shrinkThreshold = Math.round(items.length * SHRINK_FACTOR);
+      if (lastIndex < shrinkThreshold && shrinkThreshold >= DEFAULT_CAPACITY) {
+        items = Arrays.copyOf(items, shrinkThreshold);
+      }
+      return removedItem;
+    }
+
+    T[] snapshot() {
+      lock.lock();
+      try {
+        return Arrays.copyOf(items, size);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T[] createArray(final int capacity) {
+      return (T[]) new Object[capacity];
+    }
+
+  }
+
+  private class RandomizedQueueIterator implements Iterator<Item> {
+
+    private final Item[] shuffled;
+
+    private int cursor;
+
+    public RandomizedQueueIterator() {
+      final Object[][] snapshots = new Object[shards.length][];
+      int length = 0;
+      for (int i = 0; i < shards.length; i++) {
+        snapshots[i] = shards[i].snapshot();
+        length += snapshots[i].length;
+      }
+
+      final Item[] all = Shard.createArray(length);
+      int from = 0;
+      for (final Object[] snapshot : snapshots) {
+        System.arraycopy(snapshot, 0, all, from, snapshot.length);
+        from += snapshot.length;
+      }
+
+      // Fisher-Yates shuffle
+      final ThreadLocalRandom random = ThreadLocalRandom.current();
+      for (int i = all.length - 1; i > 0; i--) {
+        final int j = random.nextInt(i + 1);
+        final Item swapped = all[i];
+        all[i] = all[j];
+        all[j] = swapped;
+      }
+      shuffled = all;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return cursor != shuffled.length;
+    }
+
+    @Override
+    public Item next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException("No more element to iterate over");
+      }
+
+      return shuffled[cursor++];
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Removal through iterator is not supported");
+    }
+
+  }
+
+}
@@ -0,0 +1,119 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A {@link RandomizedQueue} of double values, stored unboxed in an array. Its iterator returns the
+ * values through {@link PrimitiveIterator.OfDouble#nextDouble()} without boxing them.
+ */
+public class DoubleRandomizedQueue implements Iterable<Double> {
+
+  private final RandomSlots slots = new RandomSlots();
+
+  private double[] values = new double[RandomSlots.DEFAULT_CAPACITY];
+
+  /**
+   * Constructs an empty randomized queue.
+   */
+  public DoubleRandomizedQueue() {
+    // nothing to do
+  }
+
+  /**
+   * Indicates whether the queue is empty.
+   * 
+   * @return true, iff the queue is empty
+   */
+  public boolean isEmpty() {
+    return slots.size() == 0;
+  }
+
+  /**
+   * Returns the number of values on the queue.
+   * 
+   * @return the number of contained values
+   */
+  public int size() {
+    return slots.size();
+  }
+
+  /**
+   * Adds a value to the back of the queue.
+   * 
+   * @param value the value to insert
+   */
+  public void enqueue(final double value) {
+    values = slots.reserve(values);
+    values[slots.add()] = value;
+  }
+
+  /**
+   * Deletes and returns a random value.
+   * 
+   * @return a random value that is being removed from the queue
+   * @throws NoSuchElementException if the queue is empty
+   */
+  public double dequeue() {
+    final int removedIndex = slots.draw();
+    final double removedValue = values[removedIndex];
+
+    // the last value takes the place of the removed one
+    values[removedIndex] = values[slots.removeLast()];
+    values = slots.shrinkIfSparse(values);
+
+    return removedValue;
+  }
+
+  /**
+   * Returns a random value, without removing it.
+   * 
+   * @return a random value of the queue
+   * @throws NoSuchElementException if the queue is empty
+   */
+  public double sample() {
+    return values[slots.draw()];
+  }
+
+  // return an independent iterator over values in random order
+  @Override
+  public PrimitiveIterator.OfDouble iterator() {
+    return new RandomizedQueueIterator();
+  }
+
+  private class RandomizedQueueIterator implements PrimitiveIterator.OfDouble {
+
+    private final int expectedModCount = slots.modCount();
+
+    // the values themselves are shuffled, no indirection through indices
+    private final double[] shuffled = Arrays.copyOf(values, slots.size());
+
+    private int cursor;
+
+    public RandomizedQueueIterator() {
+      StdRandom.shuffle(shuffled);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return cursor != shuffled.length;
+    }
+
+    @Override
+    public double nextDouble() {
+      slots.checkForComodification(expectedModCount);
+
+      if (!hasNext()) {
+        throw new NoSuchElementException("No more element to iterate over");
+      }
+
+      return shuffled[cursor++];
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Removal through iterator is not supported");
+    }
+
+  }
+
+}
@@ -0,0 +1,159 @@
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A deque of long values, stored unboxed in a circular array like in {@link ResizingArrayDeque}.
+ * Its iterator returns the values through {@link PrimitiveIterator.OfLong#nextLong()} without
+ * boxing them.
+ */
+public class LongDeque implements Iterable<Long> {
+
+  private final RingIndex ring = new RingIndex();
+
+  private long[] values = new long[RingIndex.DEFAULT_CAPACITY];
+
+  /**
+   * Constructs an empty deque.
+   */
+  public LongDeque() {
+    // nothing to do
+  }
+
+  /**
+   * Indicates if the deque is empty.
+   * 
+   * @return true, iff the deque is empty
+   */
+  public boolean isEmpty() {
+    return ring.size() == 0;
+  }
+
+  /**
+   * Returns the size of the deque.
+   * 
+   * @return the number of values on the deque
+   */
+  public int size() {
+    return ring.size();
+  }
+
+  /**
+   * Inserts the given value at the front.
+   * 
+   * @param value the value to be inserted
+   */
+  public void addFirst(final long value) {
+    values = ring.reserve(values, 1);
+    values[ring.addFirst()] = value;
+  }
+
+  /**
+   * Inserts a value at the end
+   * 
+   * @param value the value to be inserted
+   */
+  public void addLast(final long value) {
+    values = ring.reserve(values, 1);
+    values[ring.addLast()] = value;
+  }
+
+  /**
+   * Inserts the given values at the end, in order.
+   * 
+   * @param newValues the values to be inserted
+   */
+  public void addAll(final long[] newValues) {
+    values = ring.append(values, newValues, 0, newValues.length);
+  }
+
+  /**
+   * Inserts the values of the given deque at the end, from its front to its end.
+   * 
+   * @param other the deque whose values are inserted
+   */
+  public void addAll(final LongDeque other) {
+    values = ring.appendAll(values, other.ring, other.values);
+  }
+
+  /**
+   * Removes and returns the value at the front.
+   * 
+   * @return the value removed
+   * @throws NoSuchElementException if the deque is empty
+   */
+  public long removeFirst() {
+    final long value = values[ring.removeFirst()];
+    values = ring.shrinkIfSparse(values);
+    return value;
+  }
+
+  /**
+   * Removes and returns the value at the end.
+   * 
+   * @return the value removed
+   * @throws NoSuchElementException if the deque is empty
+   */
+  public long removeLast() {
+    final long value = values[ring.removeLast()];
+    values = ring.shrinkIfSparse(values);
+    return value;
+  }
+
+  /**
+   * Returns the value at the given position, counted from the front.
+   * 
+   * @param index the position of the value, 0 for the front
+   * @return the value at the position
+   * @throws IndexOutOfBoundsException if there is no value at the position
+   */
+  public long get(final int index) {
+    return values[ring.checkedSlot(index)];
+  }
+
+  /**
+   * Returns the values from the front to the end.
+   * 
+   * @return a new array of the values
+   */
+  public long[] toArray() {
+    return ring.toArray(values);
+  }
+
+  /**
+   * Creates an iterator over values in order from front to end.
+   */
+  @Override
+  public PrimitiveIterator.OfLong iterator() {
+    return new DequeIterator();
+  }
+
+  private class DequeIterator implements PrimitiveIterator.OfLong {
+
+    private final int expectedModCount = ring.modCount();
+
+    private int cursor;
+
+    @Override
+    public boolean hasNext() {
+      return cursor != ring.size();
+    }
+
+    @Override
+    public long nextLong() {
+      ring.checkForComodification(expectedModCount);
+
+      if (!hasNext()) {
+        throw new NoSuchElementException("There is no next element to iterate over");
+      }
+
+      return values[ring.slot(cursor++)];
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Removal through the iterator is not supported");
+    }
+
+  }
+
+}
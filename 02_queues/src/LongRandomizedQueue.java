@@ -0,0 +1,125 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A {@link RandomizedQueue} of long values, stored unboxed in an array. Its iterator returns the
+ * values through {@link PrimitiveIterator.OfLong#nextLong()} without boxing them.
+ */
+public class LongRandomizedQueue implements Iterable<Long> {
+
+  private final RandomSlots slots = new RandomSlots();
+
+  private long[] values = new long[RandomSlots.DEFAULT_CAPACITY];
+
+  /**
+   * Constructs an empty randomized queue.
+   */
+  public LongRandomizedQueue() {
+    // nothing to do
+  }
+
+  /**
+   * Indicates whether the queue is empty.
+   * 
+   * @return true, iff the queue is empty
+   */
+  public boolean isEmpty() {
+    return slots.size() == 0;
+  }
+
+  /**
+   * Returns the number of values on the queue.
+   * 
+   * @return the number of contained values
+   */
+  public int size() {
+    return slots.size();
+  }
+
+  /**
+   * Adds a value to the back of the queue.
+   * 
+   * @param value the value to insert
+   */
+  public void enqueue(final long value) {
+    values = slots.reserve(values);
+    values[slots.add()] = value;
+  }
+
+  /**
+   * Deletes and returns a random value.
+   * 
+   * @return a random value that is being removed from the queue
+   * @throws NoSuchElementException if the queue is empty
+   */
+  public long dequeue() {
+    final int removedIndex = slots.draw();
+    final long removedValue = values[removedIndex];
+
+    // the last value takes the place of the removed one
+    values[removedIndex] = values[slots.removeLast()];
+    values = slots.shrinkIfSparse(values);
+
+    return removedValue;
+  }
+
+  /**
+   * Returns a random value, without removing it.
+   * 
+   * @return a random value of the queue
+   * @throws NoSuchElementException if the queue is empty
+   */
+  public long sample() {
+    return values[slots.draw()];
+  }
+
+  // return an independent iterator over values in random order
+  @Override
+  public PrimitiveIterator.OfLong iterator() {
+    return new RandomizedQueueIterator();
+  }
+
+  private class RandomizedQueueIterator implements PrimitiveIterator.OfLong {
+
+    private final int expectedModCount = slots.modCount();
+
+    // the values themselves are shuffled, no indirection through indices
+    private final long[] shuffled = Arrays.copyOf(values, slots.size());
+
+    private int cursor;
+
+    public RandomizedQueueIterator() {
+      // StdRandom has no shuffle of longs, Fisher-Yates shuffle
+      for (int i = shuffled.length - 1; i > 0; i--) {
+        final int j = StdRandom.uniform(i + 1);
+        final long swapped = shuffled[i];
+        shuffled[i] = shuffled[j];
+        shuffled[j] = swapped;
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return cursor != shuffled.length;
+    }
+
+    @Override
+    public long nextLong() {
+      slots.checkForComodification(expectedModCount);
+
+      if (!hasNext()) {
+        throw new NoSuchElementException("No more element to iterate over");
+      }
+
+      return shuffled[cursor++];
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Removal through iterator is not supported");
+    }
+
+  }
+
+}
@@ -0,0 +1,77 @@
+import java.lang.reflect.Array;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * The bookkeeping shared by the primitive randomized queues ({@link IntRandomizedQueue},
+ * {@link LongRandomizedQueue}, {@link DoubleRandomizedQueue}): the values fill the start of an
+ * array which doubles when full and shrinks when a quarter full, and a removed value is replaced
+ * by the last one. The queues own their typed array and only move the values between the slots
+ * handed out here; operations which resize the array take it and return the array to use from
+ * then on.
+ */
+final class RandomSlots {
+
+  static final int DEFAULT_CAPACITY = 2;
+  private static final float SHRINK_FACTOR = 0.25f;
+
+  private int size;
+
+  // helps to avoid comodifications
+  private int modCount;
+
+  int size() {
+    return size;
+  }
+
+  int modCount() {
+    return modCount;
+  }
+
+  // the array with room for one more value
+  <A> A reserve(final A values) {
+    final int capacity = Array.getLength(values);
+    return size == capacity ? resize(values, capacity * 2) : values;
+  }
+
+  // the slot for a new value, whose capacity must have been reserved
+  int add() {
+    ++modCount;
+    return size++;
+  }
+
+  // a uniformly random slot holding a value
+  int draw() {
+    if (size == 0) {
+      throw new NoSuchElementException("Queue is empty");
+    }
+    return StdRandom.uniform(size);
+  }
+
+  // the slot of the last value, which is given up and must be moved to the removed one
+  int removeLast() {
+    ++modCount;
+    return --size;
+  }
+
+  // the array shrunk if it became sparse
+  <A> A shrinkIfSparse(final A values) {
+    final int shrinkThreshold = Math.round(Array.getLength(values) * SHRINK_FACTOR);
+    return size < shrinkThreshold ? resize(values, shrinkThreshold) : values;
+  }
+
+  void checkForComodification(final int expectedModCount) {
+    if (expectedModCount != modCount) {
+      throw new ConcurrentModificationException();
+    }
+  }
+
+  // a new array of the given capacity starting with the values
+  @SuppressWarnings("unchecked")
+  private <A> A resize(final A values, final int capacity) {
+    final A resized = (A) Array.newInstance(values.getClass().getComponentType(), capacity);
+    System.arraycopy(values, 0, resized, 0, size);
+    return resized;
+  }
+
+}
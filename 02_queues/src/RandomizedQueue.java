@@ -2,10 +2,20 @@ import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.function.IntSupplier;
 
 /**
  * A randomized queue that is similar to a stack or queue, except that the item removed is chosen
  * uniformly at random from items in the data structure.
+ * <p>
+ * By default the random choices are made by the shared {@link StdRandom}. A queue can instead be
+ * given its own generator, which makes its choices reproducible from a seed and free of contention
+ * with other queues. Any source of uniformly random ints plugs in as an {@link IntSupplier}, such
+ * as {@code new java.util.Random(seed)::nextInt}, a xoroshiro generator or a recorded sequence to
+ * replay, and a {@link SplittableRandom} or a seed can be given directly. The indices are then
+ * drawn with Lemire's multiply-shift method, which avoids the division of a modulo in all but rare
+ * cases.
  * 
  * @param <Item> the type of the elements stored in the queue
  */
@@ -23,13 +33,55 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
   // helps to avoid comodifications
   private int modCount;
 
+  // source of uniformly random ints, or null to use StdRandom
+  private final IntSupplier randomBits;
+
   /**
    * Constructs an empty randomized queue.
    */
   public RandomizedQueue() {
+    randomBits = null;
     resize(DEFAULT_CAPACITY);
   }
 
+  /**
+   * Constructs an empty randomized queue making its random choices with the given source of
+   * uniformly random ints, all 32 bits of which must be random. The source must not be used by
+   * other threads meanwhile.
+   * 
+   * @param randomBits the source of random ints of the queue
+   * @throws IllegalArgumentException if randomBits is null
+   */
+  public RandomizedQueue(final IntSupplier randomBits) {
+    if (randomBits == null) {
+      throw new IllegalArgumentException("Random generator cannot be null");
+    }
+
+    this.randomBits = randomBits;
+    resize(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs an empty randomized queue making its random choices with the given generator, which
+   * must not be used by other threads meanwhile.
+   * 
+   * @param random the generator of the queue
+   * @throws IllegalArgumentException if random is null
+   */
+  public RandomizedQueue(final SplittableRandom random) {
+    this(random == null ? null : (IntSupplier) random::nextInt);
+  }
+
+  /**
+   * Constructs an empty randomized queue making its random choices with a generator of the given
+   * seed, so that the same operations return the same items.
+   * 
+   * @param seed the seed of the generator of the queue
+   */
+  public RandomizedQueue(final long seed) {
+    this(new SplittableRandom(seed));
+  }
+
   /**
    * Indicates whether the queue is empty.
    * 
@@ -116,7 +168,22 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
   }
 
   private int getRandomItemIndex() {
-    return StdRandom.uniform(size);
+    return randomBits == null ? StdRandom.uniform(size) : uniform(randomBits, size);
+  }
+
+  // uniform in [0, bound): the high half of a 32 x 32 bit product, rejecting the biased low halves
+  private static int uniform(final IntSupplier randomBits, final int bound) {
+    long product = (randomBits.getAsInt() & 0xFFFFFFFFL) * bound;
+    long low = product & 0xFFFFFFFFL;
+    if (low < bound) {
+      // 2^32 mod bound values of the low half would favour some of the indices
+      final long threshold = (1L << 32) % bound;
+      while (low < threshold) {
+        product = (randomBits.getAsInt() & 0xFFFFFFFFL) * bound;
+        low = product & 0xFFFFFFFFL;
+      }
+    }
+    return (int) (product >>> 32);
   }
 
   private void resize(final int newCapacity) {
@@ -146,7 +213,18 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         itemIndices[i] = i;
       }
 
-      StdRandom.shuffle(itemIndices);
+      if (randomBits == null) {
+        StdRandom.shuffle(itemIndices);
+        return;
+      }
+
+      // Fisher-Yates shuffle
+      for (int i = itemIndices.length - 1; i > 0; i--) {
+        final int j = uniform(randomBits, i + 1);
+        final int swapped = itemIndices[i];
+        itemIndices[i] = itemIndices[j];
+        itemIndices[j] = swapped;
+      }
     }
 
     @Override
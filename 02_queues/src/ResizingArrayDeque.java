@@ -0,0 +1,313 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link Deque} stored in a circular array instead of linked nodes, so that adding an item does
+ * not allocate anything once the array is large enough, and the items can be accessed by index.
+ * <p>
+ * The capacity is always a power of two, so the position of an item wraps around with a mask. The
+ * array doubles when full and halves when it is less than a quarter full, so a deque whose size
+ * oscillates around a power of two does not resize on every operation.
+ * 
+ * @param <Item> the type of the contained items
+ */
+public class ResizingArrayDeque<Item> implements Iterable<Item> {
+
+  private static final int DEFAULT_CAPACITY = 8;
+  private static final int SHRINK_DIVISOR = 4;
+
+  // largest power of two an array can have
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private Item[] items;
+
+  // index of the first item, and capacity - 1
+  private int head;
+  private int mask;
+
+  private int size;
+  private int modCount;
+
+  /**
+   * Constructs an empty deque.
+   */
+  public ResizingArrayDeque() {
+    items = createArray(DEFAULT_CAPACITY);
+    mask = DEFAULT_CAPACITY - 1;
+  }
+
+  /**
+   * Indicates if the deque is empty.
+   * 
+   * @return true, iff the deque is empty
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the size of the deque.
+   * 
+   * @return the number of items on the deque
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Inserts the given item at the front.
+   * 
+   * @param item the item to be inserted
+   * @throws NullPointerException if item is null
+   */
+  public void addFirst(final Item item) {
+    checkItemNotNull(item);
+    ensureCapacity(size + 1);
+
+    head = (head - 1) & mask;
+    items[head] = item;
+
+    ++size;
+    ++modCount;
+  }
+
+  /**
+   * Inserts an item at the end
+   * 
+   * @param item the item to be inserted
+   * @throws NullPointerException if item is null
+   */
+  public void addLast(final Item item) {
+    checkItemNotNull(item);
+    ensureCapacity(size + 1);
+
+    items[(head + size) & mask] = item;
+
+    ++size;
+    ++modCount;
+  }
+
+  /**
+   * Inserts the given items at the end, in order. No item is inserted if one of them is null.
+   * 
+   * @param newItems the items to be inserted
+   * @throws NullPointerException if an item is null
+   */
+  public void addAll(final Item[] newItems) {
+    for (final Item item : newItems) {
+      checkItemNotNull(item);
+    }
+    ensureCapacity(size + newItems.length);
+    append(newItems, 0, newItems.length);
+    ++modCount;
+  }
+
+  /**
+   * Inserts the items of the given deque at the end, from its front to its end.
+   * 
+   * @param other the deque whose items are inserted
+   */
+  public void addAll(final ResizingArrayDeque<? extends Item> other) {
+    if (other == this) {
+      addAll(toArray(createArray(size)));
+      return;
+    }
+
+    final int count = other.size;
+    ensureCapacity(size + count);
+
+    // the items of the other deque may wrap around the end of its array
+    final int untilEnd = Math.min(count, other.items.length - other.head);
+    append(other.items, other.head, untilEnd);
+    append(other.items, 0, count - untilEnd);
+    ++modCount;
+  }
+
+  /**
+   * Removes and returns the item at the front.
+   * 
+   * @return the item removed
+   * @throws NoSuchElementException if the deque is empty
+   */
+  public Item removeFirst() {
+    if (size == 0) {
+      throw new NoSuchElementException("Cannot remove first item from an empty deque");
+    }
+
+    final Item item = items[head];
+    items[head] = null; // avoid loitering
+    head = (head + 1) & mask;
+
+    --size;
+    ++modCount;
+    shrinkIfSparse();
+
+    return item;
+  }
+
+  /**
+   * Removes and returns the item at the end.
+   * 
+   * @return the item removed
+   * @throws NoSuchElementException if the deque is empty
+   */
+  public Item removeLast() {
+    if (size == 0) {
+      throw new NoSuchElementException("Cannot remove last item from an empty deque");
+    }
+
+    final int lastIndex = (head + size - 1) & mask;
+    final Item item = items[lastIndex];
+    items[lastIndex] = null; // avoid loitering
+
+    --size;
+    ++modCount;
+    shrinkIfSparse();
+
+    return item;
+  }
+
+  /**
+   * Returns the item at the given position, counted from the front.
+   * 
+   * @param index the position of the item, 0 for the front
+   * @return the item at the position
+   * @throws IndexOutOfBoundsException if there is no item at the position
+   */
+  public Item get(final int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(
+          String.format("Index %s is out of the deque of %s items", index, size));
+    }
+    return items[(head + index) & mask];
+  }
+
+  /**
+   * Returns the items from the front to the end.
+   * 
+   * @return a new array of the items
+   */
+  public Object[] toArray() {
+    return copyInto(new Object[size]);
+  }
+
+  /**
+   * Returns the items from the front to the end, in the given array if it is large enough, or else
+   * in a new array of the same runtime type. As in {@link java.util.Collection#toArray(Object[])},
+   * the slot following the items is set to null if the given array is larger.
+   * 
+   * @param array the array to store the items in
+   * @return the array of the items
+   */
+  public Item[] toArray(final Item[] array) {
+    final Item[] result = array.length >= size ? array : Arrays.copyOf(array, size);
+    copyInto(result);
+    if (result.length > size) {
+      result[size] = null;
+    }
+    return result;
+  }
+
+  /**
+   * Creates an iterator over items in order from front to end.
+   */
+  @Override
+  public Iterator<Item> iterator() {
+    return new DequeIterator();
+  }
+
+  private void checkItemNotNull(final Item item) {
+    if (item == null) {
+      throw new NullPointerException("Cannot add a null item to the deque");
+    }
+  }
+
+  // copies source[from, from + length) after the last item, the capacity must suffice
+  private void append(final Object[] source, final int from, final int length) {
+    // the free slots after the last item may wrap around the end of the array
+    final int tail = (head + size) & mask;
+    final int untilEnd = Math.min(length, items.length - tail);
+    System.arraycopy(source, from, items, tail, untilEnd);
+    System.arraycopy(source, from + untilEnd, items, 0, length - untilEnd);
+    size += length;
+  }
+
+  // copies the items from the front to the end into array[0, size)
+  private <T> T[] copyInto(final T[] array) {
+    final int untilEnd = Math.min(size, items.length - head);
+    System.arraycopy(items, head, array, 0, untilEnd);
+    System.arraycopy(items, 0, array, untilEnd, size - untilEnd);
+    return array;
+  }
+
+  private void ensureCapacity(final int requiredCapacity) {
+    if (requiredCapacity < 0 || requiredCapacity > MAX_CAPACITY) {
+      throw new IllegalStateException("Deque cannot hold more than " + MAX_CAPACITY + " items");
+    }
+    if (requiredCapacity <= items.length) {
+      return;
+    }
+
+    int newCapacity = items.length;
+    while (newCapacity < requiredCapacity) {
+      newCapacity *= 2;
+    }
+    resize(newCapacity);
+  }
+
+  private void shrinkIfSparse() {
+    if (items.length > DEFAULT_CAPACITY && size < items.length / SHRINK_DIVISOR) {
+      resize(items.length / 2);
+    }
+  }
+
+  // moves the items to the start of a new array
+  private void resize(final int newCapacity) {
+    items = copyInto(createArray(newCapacity));
+    head = 0;
+    mask = newCapacity - 1;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T[] createArray(final int capacity) {
+    return (T[]) new Object[capacity];
+  }
+
+  private class DequeIterator implements Iterator<Item> {
+
+    private final int expectedModCount = modCount;
+
+    private int cursor;
+
+    @Override
+    public boolean hasNext() {
+      return cursor != size;
+    }
+
+    @Override
+    public Item next() {
+      checkForComodification();
+
+      if (!hasNext()) {
+        throw new NoSuchElementException("There is no next element to iterate over");
+      }
+
+      return items[(head + cursor++) & mask];
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Removal through the iterator is not supported");
+    }
+
+    private void checkForComodification() {
+      if (expectedModCount != modCount) {
+        throw new ConcurrentModificationException();
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,184 @@
+import java.lang.reflect.Array;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * The circular-array arithmetic shared by the primitive deques ({@link IntDeque},
+ * {@link LongDeque}, {@link DoubleDeque}): the index of the front value, the capacity mask, the
+ * size and the modification count. The deques own their typed array and only read or write the
+ * slots the index hands out; operations which resize or copy the array take it and return the
+ * array to use from then on.
+ */
+final class RingIndex {
+
+  static final int DEFAULT_CAPACITY = 8;
+  private static final int SHRINK_DIVISOR = 4;
+
+  // largest power of two an array can have
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  // index of the first value, and capacity - 1
+  private int head;
+  private int mask = DEFAULT_CAPACITY - 1;
+
+  private int size;
+  private int modCount;
+
+  int size() {
+    return size;
+  }
+
+  int modCount() {
+    return modCount;
+  }
+
+  // the slot of the value at the given position, counted from the front
+  int slot(final int index) {
+    return (head + index) & mask;
+  }
+
+  // the slot of the value at the given position, which must hold a value
+  int checkedSlot(final int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(
+          String.format("Index %s is out of the deque of %s values", index, size));
+    }
+    return slot(index);
+  }
+
+  // the slot for a new front value, whose capacity must have been reserved
+  int addFirst() {
+    head = (head - 1) & mask;
+    ++size;
+    ++modCount;
+    return head;
+  }
+
+  // the slot for a new last value, whose capacity must have been reserved
+  int addLast() {
+    final int slot = (head + size) & mask;
+    ++size;
+    ++modCount;
+    return slot;
+  }
+
+  // the slot of the removed front value, to read before shrinking the array
+  int removeFirst() {
+    if (size == 0) {
+      throw new NoSuchElementException("Cannot remove first value from an empty deque");
+    }
+
+    final int slot = head;
+    head = (head + 1) & mask;
+    --size;
+    ++modCount;
+    return slot;
+  }
+
+  // the slot of the removed last value, to read before shrinking the array
+  int removeLast() {
+    if (size == 0) {
+      throw new NoSuchElementException("Cannot remove last value from an empty deque");
+    }
+
+    final int slot = (head + size - 1) & mask;
+    --size;
+    ++modCount;
+    return slot;
+  }
+
+  void checkForComodification(final int expectedModCount) {
+    if (expectedModCount != modCount) {
+      throw new ConcurrentModificationException();
+    }
+  }
+
+  // the array with room for count more values, doubled as often as needed
+  <A> A reserve(final A values, final int count) {
+    final int requiredCapacity = size + count;
+    if (requiredCapacity < 0 || requiredCapacity > MAX_CAPACITY) {
+      throw new IllegalStateException("Deque cannot hold more than " + MAX_CAPACITY + " values");
+    }
+    if (requiredCapacity <= mask + 1) {
+      return values;
+    }
+
+    int newCapacity = mask + 1;
+    while (newCapacity < requiredCapacity) {
+      newCapacity *= 2;
+    }
+    return moveTo(values, newCapacity);
+  }
+
+  // the array halved if it became sparse
+  <A> A shrinkIfSparse(final A values) {
+    final int capacity = mask + 1;
+    if (capacity > DEFAULT_CAPACITY && size < capacity / SHRINK_DIVISOR) {
+      return moveTo(values, capacity / 2);
+    }
+    return values;
+  }
+
+  // appends source[from, from + length) after the last value
+  <A> A append(final A values, final A source, final int from, final int length) {
+    final A reserved = reserve(values, length);
+    copyAfterLast(reserved, source, from, length);
+    ++modCount;
+    return reserved;
+  }
+
+  // appends the values of another deque, from its front to its end
+  <A> A appendAll(final A values, final RingIndex other, final A otherValues) {
+    if (other == this) {
+      return append(values, toArray(values), 0, size);
+    }
+
+    final int count = other.size;
+    final A reserved = reserve(values, count);
+
+    // the values of the other deque may wrap around the end of its array
+    final int untilEnd = Math.min(count, other.mask + 1 - other.head);
+    copyAfterLast(reserved, otherValues, other.head, untilEnd);
+    copyAfterLast(reserved, otherValues, 0, count - untilEnd);
+    ++modCount;
+    return reserved;
+  }
+
+  // a new array of the values from the front to the end
+  <A> A toArray(final A values) {
+    return copyInto(values, newArray(values, size));
+  }
+
+  // copies source[from, from + length) after the last value, the capacity must suffice
+  private void copyAfterLast(final Object values, final Object source, final int from,
+      final int length) {
+    // the free slots after the last value may wrap around the end of the array
+    final int tail = (head + size) & mask;
+    final int untilEnd = Math.min(length, mask + 1 - tail);
+    System.arraycopy(source, from, values, tail, untilEnd);
+    System.arraycopy(source, from + untilEnd, values, 0, length - untilEnd);
+    size += length;
+  }
+
+  // copies the values from the front to the end into target[0, size)
+  private <A> A copyInto(final A values, final A target) {
+    final int untilEnd = Math.min(size, mask + 1 - head);
+    System.arraycopy(values, head, target, 0, untilEnd);
+    System.arraycopy(values, 0, target, untilEnd, size - untilEnd);
+    return target;
+  }
+
+  // moves the values to the start of a new array
+  private <A> A moveTo(final A values, final int newCapacity) {
+    final A moved = copyInto(values, newArray(values, newCapacity));
+    head = 0;
+    mask = newCapacity - 1;
+    return moved;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <A> A newArray(final A like, final int length) {
+    return (A) Array.newInstance(like.getClass().getComponentType(), length);
+  }
+
+}
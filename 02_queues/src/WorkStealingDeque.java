@@ -0,0 +1,235 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A concurrent deque for work-stealing schedulers, after Chase and Lev, "Dynamic Circular
+ * Work-Stealing Deque" (SPAA 2005). A single owner thread pushes and pops items at the bottom
+ * without locking, in LIFO order, while any number of thief threads steal the oldest items at the
+ * top, competing through a compare-and-set of the top index. Only the last item can be contended
+ * between the owner and the thieves.
+ * <p>
+ * The items are kept in a circular array, which doubles when full and never shrinks. Indices only
+ * grow, so an item keeps its index when the array is replaced, and a thief still holding the old
+ * array reads the same item. Stolen items are not cleared from the array, they are released when
+ * their slot is reused.
+ * <p>
+ * Iterators are weakly consistent, as those of {@link java.util.concurrent}: they never throw
+ * {@link java.util.ConcurrentModificationException}, return the items from the top to the bottom
+ * as they were at some point since the iterator was created, and may or may not reflect later
+ * changes.
+ * 
+ * @param <Item> the type of the contained items
+ */
+public class WorkStealingDeque<Item> implements Iterable<Item> {
+
+  private static final int DEFAULT_CAPACITY = 32;
+
+  // largest power of two an array can have
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  // index of the next item to steal, only incremented by compare-and-set
+  private final AtomicLong top = new AtomicLong();
+
+  // index of the next item to push, only written by the owner
+  private volatile long bottom;
+
+  private volatile CircularArray<Item> array = new CircularArray<>(DEFAULT_CAPACITY);
+
+  /**
+   * Constructs an empty deque.
+   */
+  public WorkStealingDeque() {
+    // nothing to do
+  }
+
+  /**
+   * Indicates if the deque is empty. The answer may be outdated as soon as it is returned.
+   * 
+   * @return true, iff the deque was empty
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Returns the size of the deque. The answer may be outdated as soon as it is returned.
+   * 
+   * @return the number of items the deque held
+   */
+  public int size() {
+    final long t = top.get();
+    final long b = bottom;
+    return (int) Math.max(0, b - t);
+  }
+
+  /**
+   * Inserts an item at the bottom. Must only be called by the owner thread.
+   * 
+   * @param item the item to be inserted
+   * @throws NullPointerException if item is null
+   */
+  public void push(final Item item) {
+    if (item == null) {
+      throw new NullPointerException("Cannot add a null item to the deque");
+    }
+
+    final long b = bottom;
+    final long t = top.get();
+    CircularArray<Item> a = array;
+    if (b - t >= a.capacity()) {
+      a = a.grow(t, b);
+      array = a;
+    }
+
+    a.set(b, item);
+    // publishes the item to the thieves
+    bottom = b + 1;
+  }
+
+  /**
+   * Removes and returns the item at the bottom, the last one pushed. Must only be called by the
+   * owner thread.
+   * 
+   * @return the item removed, or null if the deque is empty or a thief took its last item first
+   */
+  public Item pop() {
+    final long b = bottom - 1;
+    final CircularArray<Item> a = array;
+    // reserves the bottom item before looking at the top, both accesses being volatile
+    bottom = b;
+    final long t = top.get();
+
+    if (t > b) {
+      // empty
+      bottom = b + 1;
+      return null;
+    }
+
+    Item item = a.get(b);
+    if (t == b) {
+      // last item, which a thief may be taking
+      if (!top.compareAndSet(t, t + 1)) {
+        item = null;
+      }
+      bottom = b + 1;
+    } else {
+      a.set(b, null); // avoid loitering
+    }
+    return item;
+  }
+
+  /**
+   * Removes and returns the item at the top, the oldest one. May be called by any thread.
+   * 
+   * @return the item removed, or null if the deque is empty or another thread took the item first
+   */
+  public Item steal() {
+    final long t = top.get();
+    final long b = bottom;
+    if (t >= b) {
+      return null;
+    }
+
+    final CircularArray<Item> a = array;
+    final Item item = a.get(t);
+    return top.compareAndSet(t, t + 1) ? item : null;
+  }
+
+  /**
+   * Creates a weakly consistent iterator over the items, from the top to the bottom.
+   */
+  @Override
+  public Iterator<Item> iterator() {
+    return new DequeIterator();
+  }
+
+  // power-of-two array of items addressed by ever-growing indices
+  private static final class CircularArray<E> {
+
+    private final AtomicReferenceArray<E> items;
+    private final int mask;
+
+    CircularArray(final int capacity) {
+      this.items = new AtomicReferenceArray<>(capacity);
+      this.mask = capacity - 1;
+    }
+
+    int capacity() {
+      return mask + 1;
+    }
+
+    E get(final long index) {
+      return items.get((int) index & mask);
+    }
+
+    void set(final long index, final E item) {
+      items.set((int) index & mask, item);
+    }
+
+    // a twice larger array holding the items [top, bottom) at the same indices
+    CircularArray<E> grow(final long top, final long bottom) {
+      if (capacity() == MAX_CAPACITY) {
+        throw new IllegalStateException("Deque cannot hold more than " + MAX_CAPACITY + " items");
+      }
+
+      final CircularArray<E> grown = new CircularArray<>(2 * capacity());
+      for (long i = top; i < bottom; i++) {
+        grown.set(i, get(i));
+      }
+      return grown;
+    }
+
+  }
+
+  private class DequeIterator implements Iterator<Item> {
+
+    // bottom before array, as in steal(): push() writes them the other way round, so the array
+    // read holds every index below end even if the owner grows it in between
+    private final long end = bottom;
+    private final CircularArray<Item> items = array;
+
+    private long cursor = top.get();
+    private Item next;
+
+    DequeIterator() {
+      advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public Item next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException("There is no next element to iterate over");
+      }
+
+      final Item item = next;
+      advance();
+      return item;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Removal through the iterator is not supported");
+    }
+
+    // finds the next item, skipping the ones taken meanwhile
+    private void advance() {
+      next = null;
+      while (next == null && cursor < end) {
+        // stop at the items stolen since the iterator was created
+        cursor = Math.max(cursor, top.get());
+        if (cursor < end) {
+          next = items.get(cursor++);
+        }
+      }
+    }
+
+  }
+
+}
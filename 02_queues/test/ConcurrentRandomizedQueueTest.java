@@ -0,0 +1,223 @@
+import static com.google.common.truth.Truth.ASSERT;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link ConcurrentRandomizedQueue}.
+ */
+public class ConcurrentRandomizedQueueTest {
+
+  private static final int SHARD_COUNT = 4;
+  private static final int THREAD_COUNT = 4;
+  private static final int ITEMS_PER_THREAD = 50_000;
+  private static final int SAMPLE_COUNT = 40_000;
+
+  // unit under test
+  private ConcurrentRandomizedQueue<String> queue;
+
+  @Before
+  public void setUpQueue() {
+    queue = new ConcurrentRandomizedQueue<>(SHARD_COUNT);
+  }
+
+  @Test
+  public void emptyAfterCreated() {
+    // given -- queue is initialized
+
+    // then
+    verifyEmpty();
+  }
+
+  @Test
+  public void shardCountIsRoundedUpToPowerOfTwo() {
+    // then
+    assertEquals(4, new ConcurrentRandomizedQueue<String>(3).shardCount());
+    assertEquals(1, new ConcurrentRandomizedQueue<String>(1).shardCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void cannotCreateWithoutShards() {
+    // when
+    new ConcurrentRandomizedQueue<String>(0);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void cannotEnqueueNull() {
+    // given -- queue is initialized
+
+    // when
+    queue.enqueue(null);
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void cannotDequeueIfEmpty() {
+    // given -- queue is initialized
+
+    // when
+    queue.dequeue();
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void cannotSampleIfEmpty() {
+    // given -- queue is initialized
+
+    // when
+    queue.sample();
+  }
+
+  @Test
+  public void enqueueThenDequeue() {
+    // given
+    queue.enqueue(TestData.MAKKA_PAKKA);
+
+    // when
+    final String item = queue.dequeue();
+
+    // then
+    assertEquals(TestData.MAKKA_PAKKA, item);
+    verifyEmpty();
+  }
+
+  @Test
+  public void testIterator() {
+    // given
+    queue.enqueue(TestData.MAKKA_PAKKA);
+    queue.enqueue(TestData.IGGLE_PIGGLE);
+    queue.enqueue(TestData.UPSY_DAISY);
+    queue.enqueue(TestData.TOMBLIBOOS);
+
+    // when
+    final List<String> result = new ArrayList<>();
+    for (Iterator<String> iterator = queue.iterator(); iterator.hasNext();) {
+      result.add(iterator.next());
+    }
+
+    // then
+    ASSERT.that(result).containsExactly(TestData.MAKKA_PAKKA, TestData.IGGLE_PIGGLE,
+        TestData.UPSY_DAISY, TestData.TOMBLIBOOS);
+  }
+
+  @Test
+  public void sampleIsUniformAcrossUnevenShards() throws InterruptedException {
+    // given -- three items enqueued by one thread, one by another
+    queue.enqueue("0");
+    queue.enqueue("1");
+    queue.enqueue("2");
+    final Thread producer = new Thread(() -> queue.enqueue("3"));
+    producer.start();
+    producer.join();
+
+    // when
+    final int[] counts = new int[4];
+    for (int i = 0; i < SAMPLE_COUNT; i++) {
+      ++counts[Integer.parseInt(queue.sample())];
+    }
+
+    // then -- within about 11 standard deviations of n / 4
+    for (final int count : counts) {
+      assertTrue("Sample must be uniform, got " + count,
+          Math.abs(count - SAMPLE_COUNT / 4) < SAMPLE_COUNT / 40);
+    }
+  }
+
+  @Test
+  public void sampleIsUniformAfterQueueShrinks() {
+    // given -- the shards were much larger than what is left
+    for (int i = 0; i < 1000; i++) {
+      queue.enqueue("x");
+    }
+    for (int i = 0; i < 1000; i++) {
+      queue.dequeue();
+    }
+    for (int i = 0; i < 4; i++) {
+      queue.enqueue(String.valueOf(i));
+    }
+
+    // when
+    final int[] counts = new int[4];
+    for (int i = 0; i < SAMPLE_COUNT; i++) {
+      ++counts[Integer.parseInt(queue.sample())];
+    }
+
+    // then -- within about 11 standard deviations of n / 4
+    for (final int count : counts) {
+      assertTrue("Sample must be uniform, got " + count,
+          Math.abs(count - SAMPLE_COUNT / 4) < SAMPLE_COUNT / 40);
+    }
+  }
+
+  @Test
+  public void loadTestEveryItemIsDequeuedOnce() throws InterruptedException {
+    // given -- producers and consumers working at once
+    final int itemCount = THREAD_COUNT * ITEMS_PER_THREAD;
+    final AtomicIntegerArray dequeued = new AtomicIntegerArray(itemCount);
+    final AtomicInteger remaining = new AtomicInteger(itemCount);
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < THREAD_COUNT; t++) {
+      final int first = t * ITEMS_PER_THREAD;
+      threads.add(new Thread(() -> {
+        awaitQuietly(start);
+        for (int i = first; i < first + ITEMS_PER_THREAD; i++) {
+          queue.enqueue(String.valueOf(i));
+        }
+      }));
+      threads.add(new Thread(() -> {
+        awaitQuietly(start);
+        while (remaining.get() > 0) {
+          try {
+            dequeued.incrementAndGet(Integer.parseInt(queue.dequeue()));
+            remaining.decrementAndGet();
+          } catch (NoSuchElementException e) {
+            // the producers are behind
+          }
+        }
+      }));
+    }
+
+    // when
+    for (final Thread thread : threads) {
+      thread.start();
+    }
+    start.countDown();
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+
+    // then
+    verifyEmpty();
+    for (int i = 0; i < itemCount; i++) {
+      assertEquals("Item " + i + " must be dequeued exactly once", 1, dequeued.get(i));
+    }
+  }
+
+  private static void awaitQuietly(final CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void verifyEmpty() {
+    assertTrue("Queue must be empty", queue.isEmpty());
+    verifySize(0);
+  }
+
+  private void verifySize(final int expectedSize) {
+    assertEquals("Queue has different size than expected", expectedSize, queue.size());
+  }
+
+}
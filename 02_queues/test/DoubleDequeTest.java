@@ -0,0 +1,103 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link DoubleDeque}. The ring arithmetic it shares with {@link IntDeque} is covered
+ * by {@link IntDequeTest}, this test covers the double values.
+ */
+public class DoubleDequeTest {
+
+  // unit under test
+  private DoubleDeque deque;
+
+  @Before
+  public void setUpDeque() {
+    deque = new DoubleDeque();
+  }
+
+  @Test
+  public void dequeIsEmptyAfterCreation() {
+    // given -- deque initialized
+
+    // then
+    verifyEmpty();
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void cannotRemoveFirstIfEmpty() {
+    // given -- deque initialized
+
+    // when
+    deque.removeFirst();
+  }
+
+  @Test
+  public void keepsFractionsAndSpecialValues() {
+    // given
+    deque.addFirst(0.5);
+    deque.addLast(Double.NaN);
+    deque.addFirst(-0.0);
+
+    // then -- compared by bits, so NaN equals itself and -0.0 differs from 0.0
+    assertEquals(0, Double.compare(-0.0, deque.removeFirst()));
+    assertEquals(0, Double.compare(Double.NaN, deque.removeLast()));
+    assertEquals(0, Double.compare(0.5, deque.removeLast()));
+    verifyEmpty();
+  }
+
+  @Test
+  public void addAllAppendsInOrderAfterWrapAround() {
+    // given -- more values than the initial capacity, wrapped around the end of the array
+    final DoubleDeque other = new DoubleDeque();
+    for (int i = 10; i > 0; i--) {
+      other.addFirst(i / 4.0);
+    }
+    deque.addFirst(0);
+
+    // when
+    deque.addAll(other);
+    deque.addAll(new double[] {11 / 4.0});
+
+    // then
+    final double[] expected = new double[12];
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = i / 4.0;
+    }
+    assertArrayEquals(expected, deque.toArray(), 0);
+    assertEquals(11 / 4.0, deque.get(11), 0);
+  }
+
+  @Test
+  public void iteratorReturnsValuesWithoutBoxing() {
+    // given
+    deque.addLast(2.5);
+    deque.addFirst(1.5);
+
+    // when
+    final PrimitiveIterator.OfDouble iterator = deque.iterator();
+
+    // then
+    assertTrue(iterator.hasNext());
+    assertEquals(1.5, iterator.nextDouble(), 0);
+    assertEquals(2.5, iterator.nextDouble(), 0);
+    assertFalse(iterator.hasNext());
+  }
+
+  private void verifyEmpty() {
+    assertTrue("Deque must be empty", deque.isEmpty());
+    verifySize(0);
+  }
+
+  private void verifySize(final int expectedSize) {
+    assertEquals("Size must be different", expectedSize, deque.size());
+  }
+
+}
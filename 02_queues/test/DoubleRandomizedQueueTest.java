@@ -0,0 +1,94 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link DoubleRandomizedQueue}. The slot bookkeeping it shares with
+ * {@link IntRandomizedQueue} is covered by {@link IntRandomizedQueueTest}, this test covers the
+ * double values.
+ */
+public class DoubleRandomizedQueueTest {
+
+  // unit under test
+  private DoubleRandomizedQueue queue;
+
+  @Before
+  public void setUpQueue() {
+    queue = new DoubleRandomizedQueue();
+  }
+
+  @Test
+  public void emptyAfterCreated() {
+    // given -- queue is initialized
+
+    // then
+    verifyEmpty();
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void cannotDequeueFromEmptyQueue() {
+    // given -- queue is initialized
+
+    // when
+    queue.dequeue();
+  }
+
+  @Test
+  public void dequeueReturnsEveryValueOnce() {
+    // given -- more values than the initial capacity, so that the array grows and shrinks
+    enqueueAll(0.25, 0.5, 0.75, 1.0);
+
+    // when
+    final double[] dequeued = new double[4];
+    for (int i = 0; i < dequeued.length; i++) {
+      dequeued[i] = queue.dequeue();
+    }
+
+    // then
+    verifyEmpty();
+    Arrays.sort(dequeued);
+    assertArrayEquals(new double[] {0.25, 0.5, 0.75, 1.0}, dequeued, 0);
+  }
+
+  @Test
+  public void iteratorReturnsEveryValueWithoutBoxing() {
+    // given
+    enqueueAll(0.25, 0.5, 0.75, 1.0);
+
+    // when
+    final double[] result = new double[4];
+    final PrimitiveIterator.OfDouble iterator = queue.iterator();
+    for (int i = 0; i < result.length; i++) {
+      result[i] = iterator.nextDouble();
+    }
+
+    // then
+    assertFalse(iterator.hasNext());
+    Arrays.sort(result);
+    assertArrayEquals(new double[] {0.25, 0.5, 0.75, 1.0}, result, 0);
+  }
+
+  private void enqueueAll(final double... values) {
+    for (final double value : values) {
+      queue.enqueue(value);
+    }
+  }
+
+  private void verifyEmpty() {
+    assertTrue("Queue must be empty", queue.isEmpty());
+    verifySize(0);
+  }
+
+  private void verifySize(final int expectedSize) {
+    assertEquals("Queue has different size than expected", expectedSize, queue.size());
+  }
+
+}
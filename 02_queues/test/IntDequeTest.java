@@ -0,0 +1,217 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link IntDeque}.
+ */
+public class IntDequeTest {
+
+  private static final int LOAD_TEST_ITEM_COUNT = 100_000;
+
+  // unit under test
+  private IntDeque deque;
+
+  @Before
+  public void setUpDeque() {
+    deque = new IntDeque();
+  }
+
+  @Test
+  public void dequeIsEmptyAfterCreation() {
+    // given -- deque initialized
+
+    // then
+    verifyEmpty();
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void cannotRemoveFirstIfEmpty() {
+    // given -- deque initialized
+
+    // when
+    deque.removeFirst();
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void cannotRemoveLastIfEmpty() {
+    // given -- deque initialized
+
+    // when
+    deque.removeLast();
+  }
+
+  @Test
+  public void addFirst_RemoveLast_Sequence() {
+    // given
+    deque.addFirst(42);
+
+    // when
+    final int value = deque.removeLast();
+
+    // then
+    assertEquals(42, value);
+    verifyEmpty();
+  }
+
+  @Test
+  public void addLast_RemoveFirst_Sequence() {
+    // given
+    deque.addLast(-7);
+
+    // when
+    final int value = deque.removeFirst();
+
+    // then
+    assertEquals(-7, value);
+    verifyEmpty();
+  }
+
+  @Test
+  public void getAndToArrayFollowOrderAfterWrapAround() {
+    // given
+    deque.addLast(2);
+    deque.addFirst(1);
+    deque.addLast(3);
+    deque.addFirst(0);
+
+    // then
+    assertEquals(0, deque.get(0));
+    assertEquals(3, deque.get(3));
+    assertArrayEquals(new int[] {0, 1, 2, 3}, deque.toArray());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void cannotGetBeyondLastValue() {
+    // given
+    deque.addFirst(1);
+
+    // when
+    deque.get(1);
+  }
+
+  @Test
+  public void addAllAppendsInOrder() {
+    // given
+    final IntDeque other = new IntDeque();
+    other.addLast(4);
+    other.addFirst(3);
+    deque.addFirst(1);
+
+    // when
+    deque.addAll(new int[] {2});
+    deque.addAll(other);
+
+    // then
+    assertArrayEquals(new int[] {1, 2, 3, 4}, deque.toArray());
+  }
+
+  @Test
+  public void addAllOfItselfRepeatsValues() {
+    // given -- values wrapped around the end of the array
+    deque.addLast(2);
+    deque.addFirst(1);
+
+    // when
+    deque.addAll(deque);
+
+    // then
+    assertArrayEquals(new int[] {1, 2, 1, 2}, deque.toArray());
+  }
+
+  @Test
+  public void iteratorReturnsValuesWithoutBoxing() {
+    // given
+    deque.addLast(2);
+    deque.addFirst(1);
+
+    // when
+    final PrimitiveIterator.OfInt iterator = deque.iterator();
+
+    // then
+    assertTrue(iterator.hasNext());
+    assertEquals(1, iterator.nextInt());
+    assertEquals(2, iterator.nextInt());
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test(expected = ConcurrentModificationException.class)
+  public void concurrentModificationIsDetected() {
+    // given
+    deque.addFirst(1);
+    final PrimitiveIterator.OfInt iterator = deque.iterator();
+
+    // when
+    deque.addLast(2);
+    iterator.nextInt();
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void fetchNextNotAllowedThroughEmptyIterator() {
+    // given -- deque initialized
+
+    // when
+    deque.iterator().nextInt();
+  }
+
+  @Test
+  public void loadTestGrowAndShrink() {
+    // given -- a reference deque
+    final ArrayDeque<Integer> expected = new ArrayDeque<>();
+
+    // when
+    for (int i = 0; i < LOAD_TEST_ITEM_COUNT; i++) {
+      switch (StdRandom.uniform(5)) {
+        case 0:
+          deque.addFirst(i);
+          expected.addFirst(i);
+          break;
+        case 1:
+          deque.addLast(i);
+          expected.addLast(i);
+          break;
+        case 2:
+          if (!expected.isEmpty()) {
+            assertEquals((int) expected.removeFirst(), deque.removeFirst());
+          }
+          break;
+        case 3:
+          if (!expected.isEmpty()) {
+            assertEquals((int) expected.removeLast(), deque.removeLast());
+          }
+          break;
+        default:
+          if (i % 1000 == 0) {
+            while (!expected.isEmpty()) {
+              assertEquals((int) expected.removeLast(), deque.removeLast());
+            }
+          }
+      }
+    }
+
+    // then
+    verifySize(expected.size());
+    for (final int value : deque.toArray()) {
+      assertEquals((int) expected.removeFirst(), value);
+    }
+  }
+
+  private void verifyEmpty() {
+    assertTrue("Deque must be empty", deque.isEmpty());
+    verifySize(0);
+  }
+
+  private void verifySize(final int expectedSize) {
+    assertEquals("Size must be different", expectedSize, deque.size());
+  }
+
+}
@@ -0,0 +1,132 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link IntRandomizedQueue}.
+ */
+public class IntRandomizedQueueTest {
+
+  private static final int LOAD_TEST_ITEM_COUNT = 1_000_000;
+
+  // unit under test
+  private IntRandomizedQueue queue;
+
+  @Before
+  public void setUpQueue() {
+    queue = new IntRandomizedQueue();
+  }
+
+  @Test
+  public void emptyAfterCreated() {
+    // given -- queue is initialized
+
+    // then
+    verifyEmpty();
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void cannotSampleFromEmptyQueue() {
+    // given -- queue is initialized
+
+    // when
+    queue.sample();
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void cannotDequeueFromEmptyQueue() {
+    // given -- queue is initialized
+
+    // when
+    queue.dequeue();
+  }
+
+  @Test
+  public void sampleEqualsToSoleValue() {
+    // given
+    queue.enqueue(42);
+
+    // when
+    final int value = queue.sample();
+
+    // then
+    verifyNotEmpty();
+    assertEquals(42, value);
+  }
+
+  @Test
+  public void loadTestDequeueReturnsEveryValueOnce() {
+    // given
+    for (int i = 0; i < LOAD_TEST_ITEM_COUNT; i++) {
+      queue.enqueue(i);
+    }
+
+    // when
+    final int[] dequeued = new int[LOAD_TEST_ITEM_COUNT];
+    for (int i = 0; i < LOAD_TEST_ITEM_COUNT; i++) {
+      dequeued[i] = queue.dequeue();
+    }
+
+    // then
+    verifyEmpty();
+    Arrays.sort(dequeued);
+    for (int i = 0; i < LOAD_TEST_ITEM_COUNT; i++) {
+      assertEquals(i, dequeued[i]);
+    }
+  }
+
+  @Test
+  public void iteratorReturnsEveryValueWithoutBoxing() {
+    // given
+    queue.enqueue(1);
+    queue.enqueue(2);
+    queue.enqueue(3);
+    queue.enqueue(4);
+
+    // when
+    final int[] result = new int[4];
+    final PrimitiveIterator.OfInt iterator = queue.iterator();
+    for (int i = 0; i < result.length; i++) {
+      result[i] = iterator.nextInt();
+    }
+
+    // then
+    assertFalse(iterator.hasNext());
+    Arrays.sort(result);
+    assertArrayEquals(new int[] {1, 2, 3, 4}, result);
+  }
+
+  @Test(expected = ConcurrentModificationException.class)
+  public void concurrentModificationIsDetected() {
+    // given
+    queue.enqueue(1);
+    final PrimitiveIterator.OfInt iterator = queue.iterator();
+
+    // when
+    queue.enqueue(2);
+    iterator.nextInt();
+  }
+
+  private void verifyEmpty() {
+    assertTrue("Queue must be empty", queue.isEmpty());
+    verifySize(0);
+  }
+
+  private void verifyNotEmpty() {
+    assertFalse("Queue shouldn't be empty", queue.isEmpty());
+  }
+
+  private void verifySize(final int expectedSize) {
+    assertEquals("Queue has different size than expected", expectedSize, queue.size());
+  }
+
+}
@@ -0,0 +1,101 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link LongDeque}. The ring arithmetic it shares with {@link IntDeque} is covered
+ * by {@link IntDequeTest}, this test covers the long values.
+ */
+public class LongDequeTest {
+
+  // unit under test
+  private LongDeque deque;
+
+  @Before
+  public void setUpDeque() {
+    deque = new LongDeque();
+  }
+
+  @Test
+  public void dequeIsEmptyAfterCreation() {
+    // given -- deque initialized
+
+    // then
+    verifyEmpty();
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void cannotRemoveFirstIfEmpty() {
+    // given -- deque initialized
+
+    // when
+    deque.removeFirst();
+  }
+
+  @Test
+  public void keepsValuesBeyondIntRange() {
+    // given
+    deque.addFirst(Long.MAX_VALUE);
+    deque.addLast(Long.MIN_VALUE);
+
+    // then
+    assertEquals(Long.MAX_VALUE, deque.removeFirst());
+    assertEquals(Long.MIN_VALUE, deque.removeLast());
+    verifyEmpty();
+  }
+
+  @Test
+  public void addAllAppendsInOrderAfterWrapAround() {
+    // given -- more values than the initial capacity, wrapped around the end of the array
+    final LongDeque other = new LongDeque();
+    for (long i = 10; i > 0; i--) {
+      other.addFirst(i << 32);
+    }
+    deque.addFirst(0);
+
+    // when
+    deque.addAll(other);
+    deque.addAll(new long[] {11L << 32});
+
+    // then
+    final long[] expected = new long[12];
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = (long) i << 32;
+    }
+    assertArrayEquals(expected, deque.toArray());
+    assertEquals(11L << 32, deque.get(11));
+  }
+
+  @Test
+  public void iteratorReturnsValuesWithoutBoxing() {
+    // given
+    deque.addLast(2L << 40);
+    deque.addFirst(1L << 40);
+
+    // when
+    final PrimitiveIterator.OfLong iterator = deque.iterator();
+
+    // then
+    assertTrue(iterator.hasNext());
+    assertEquals(1L << 40, iterator.nextLong());
+    assertEquals(2L << 40, iterator.nextLong());
+    assertFalse(iterator.hasNext());
+  }
+
+  private void verifyEmpty() {
+    assertTrue("Deque must be empty", deque.isEmpty());
+    verifySize(0);
+  }
+
+  private void verifySize(final int expectedSize) {
+    assertEquals("Size must be different", expectedSize, deque.size());
+  }
+
+}
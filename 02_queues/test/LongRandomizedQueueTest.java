@@ -0,0 +1,94 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link LongRandomizedQueue}. The slot bookkeeping it shares with
+ * {@link IntRandomizedQueue} is covered by {@link IntRandomizedQueueTest}, this test covers the
+ * long values.
+ */
+public class LongRandomizedQueueTest {
+
+  // unit under test
+  private LongRandomizedQueue queue;
+
+  @Before
+  public void setUpQueue() {
+    queue = new LongRandomizedQueue();
+  }
+
+  @Test
+  public void emptyAfterCreated() {
+    // given -- queue is initialized
+
+    // then
+    verifyEmpty();
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void cannotDequeueFromEmptyQueue() {
+    // given -- queue is initialized
+
+    // when
+    queue.dequeue();
+  }
+
+  @Test
+  public void dequeueReturnsEveryValueOnce() {
+    // given -- more values than the initial capacity, so that the array grows and shrinks
+    enqueueAll(1L << 40, 2L << 40, 3L << 40, 4L << 40);
+
+    // when
+    final long[] dequeued = new long[4];
+    for (int i = 0; i < dequeued.length; i++) {
+      dequeued[i] = queue.dequeue();
+    }
+
+    // then
+    verifyEmpty();
+    Arrays.sort(dequeued);
+    assertArrayEquals(new long[] {1L << 40, 2L << 40, 3L << 40, 4L << 40}, dequeued);
+  }
+
+  @Test
+  public void iteratorReturnsEveryValueWithoutBoxing() {
+    // given
+    enqueueAll(1L << 40, 2L << 40, 3L << 40, 4L << 40);
+
+    // when
+    final long[] result = new long[4];
+    final PrimitiveIterator.OfLong iterator = queue.iterator();
+    for (int i = 0; i < result.length; i++) {
+      result[i] = iterator.nextLong();
+    }
+
+    // then
+    assertFalse(iterator.hasNext());
+    Arrays.sort(result);
+    assertArrayEquals(new long[] {1L << 40, 2L << 40, 3L << 40, 4L << 40}, result);
+  }
+
+  private void enqueueAll(final long... values) {
+    for (final long value : values) {
+      queue.enqueue(value);
+    }
+  }
+
+  private void verifyEmpty() {
+    assertTrue("Queue must be empty", queue.isEmpty());
+    verifySize(0);
+  }
+
+  private void verifySize(final int expectedSize) {
+    assertEquals("Queue has different size than expected", expectedSize, queue.size());
+  }
+
+}
@@ -8,6 +8,9 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.function.IntSupplier;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -18,6 +21,8 @@ import org.junit.Test;
 public class RandomizedQueueTest {
 
   private static final int LOAD_TEST_ITEM_COUNT = 1_000_000;
+  private static final long SEED = 20151017L;
+  private static final int SAMPLE_COUNT = 30_000;
 
   // unit under test
   private RandomizedQueue<String> queue;
@@ -170,6 +175,109 @@ public class RandomizedQueueTest {
         TestData.UPSY_DAISY, TestData.TOMBLIBOOS);
   }
 
+  @Test
+  public void sameSeedDequeuesSameItems() {
+    // given
+    final RandomizedQueue<String> first = seededQueueOfTestData();
+    final RandomizedQueue<String> second = seededQueueOfTestData();
+
+    // then
+    while (!first.isEmpty()) {
+      assertEquals(first.dequeue(), second.dequeue());
+    }
+    assertTrue(second.isEmpty());
+  }
+
+  @Test
+  public void sameSeedIteratesInSameOrder() {
+    // given
+    final RandomizedQueue<String> first = seededQueueOfTestData();
+    final RandomizedQueue<String> second = seededQueueOfTestData();
+
+    // when
+    final List<String> firstOrder = new ArrayList<>();
+    for (final String item : first) {
+      firstOrder.add(item);
+    }
+    final List<String> secondOrder = new ArrayList<>();
+    for (final String item : second) {
+      secondOrder.add(item);
+    }
+
+    // then
+    assertEquals(firstOrder, secondOrder);
+    ASSERT.that(firstOrder).containsExactly(TestData.MAKKA_PAKKA, TestData.IGGLE_PIGGLE,
+        TestData.UPSY_DAISY, TestData.TOMBLIBOOS);
+  }
+
+  @Test
+  public void seededSampleIsUniform() {
+    // given -- a bound that is not a power of two
+    final RandomizedQueue<String> seeded = new RandomizedQueue<>(new SplittableRandom(SEED));
+    seeded.enqueue("0");
+    seeded.enqueue("1");
+    seeded.enqueue("2");
+
+    // when
+    final int[] counts = new int[3];
+    for (int i = 0; i < SAMPLE_COUNT; i++) {
+      ++counts[Integer.parseInt(seeded.sample())];
+    }
+
+    // then -- within about 12 standard deviations of n / 3
+    for (final int count : counts) {
+      assertTrue("Sample must be uniform, got " + count,
+          Math.abs(count - SAMPLE_COUNT / 3) < SAMPLE_COUNT / 30);
+    }
+  }
+
+  @Test
+  public void recordedSequenceIsReplayed() {
+    // given -- four items, so that the two highest bits of a draw are the index
+    final int[] recorded = {0xC0000000, 0x40000000, 0x00000000};
+    final int[] cursor = {0};
+    final RandomizedQueue<String> replaying =
+        new RandomizedQueue<>(() -> recorded[cursor[0]++]);
+    replaying.enqueue(TestData.MAKKA_PAKKA);
+    replaying.enqueue(TestData.IGGLE_PIGGLE);
+    replaying.enqueue(TestData.UPSY_DAISY);
+    replaying.enqueue(TestData.TOMBLIBOOS);
+
+    // then
+    assertEquals(TestData.TOMBLIBOOS, replaying.sample());
+    assertEquals(TestData.IGGLE_PIGGLE, replaying.sample());
+    assertEquals(TestData.MAKKA_PAKKA, replaying.sample());
+  }
+
+  @Test
+  public void anyGeneratorCanBePlugged() {
+    // given
+    final RandomizedQueue<String> first = new RandomizedQueue<>(new Random(SEED)::nextInt);
+    final RandomizedQueue<String> second = new RandomizedQueue<>(new Random(SEED)::nextInt);
+    for (int i = 0; i < 100; i++) {
+      first.enqueue(String.valueOf(i));
+      second.enqueue(String.valueOf(i));
+    }
+
+    // then
+    while (!first.isEmpty()) {
+      assertEquals(first.dequeue(), second.dequeue());
+    }
+    assertTrue(second.isEmpty());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void cannotCreateWithNullRandom() {
+    // when
+    new RandomizedQueue<String>((SplittableRandom) null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void cannotCreateWithNullSupplier() {
+    // when
+    new RandomizedQueue<String>((IntSupplier) null);
+  }
+
   private void verifyEmpty() {
     assertTrue("Queue must be empty", queue.isEmpty());
     verifySize(0);
@@ -183,4 +291,13 @@ public class RandomizedQueueTest {
     assertEquals("Queue has different size than expected", expectedSize, queue.size());
   }
 
+  private static RandomizedQueue<String> seededQueueOfTestData() {
+    final RandomizedQueue<String> seeded = new RandomizedQueue<>(SEED);
+    seeded.enqueue(TestData.MAKKA_PAKKA);
+    seeded.enqueue(TestData.IGGLE_PIGGLE);
+    seeded.enqueue(TestData.UPSY_DAISY);
+    seeded.enqueue(TestData.TOMBLIBOOS);
+    return seeded;
+  }
+
 }
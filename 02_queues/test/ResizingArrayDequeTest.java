@@ -0,0 +1,422 @@
+import static com.google.common.truth.Truth.ASSERT;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link ResizingArrayDeque}.
+ */
+public class ResizingArrayDequeTest {
+
+  private static final int LOAD_TEST_ITEM_COUNT = 100_000;
+
+  // unit under test
+  private ResizingArrayDeque<String> deque;
+
+  @Before
+  public void setUpDeque() {
+    deque = new ResizingArrayDeque<String>();
+  }
+
+  @Test
+  public void dequeIsEmptyAfterCreation() {
+    // given -- deque initialized
+
+    // then
+    verifyEmpty();
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void cannotAddFirstNullItem() {
+    // given -- deque initialized
+
+    // when
+    deque.addFirst(null);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void cannotAddLastNullItem() {
+    // given -- deque initialized
+
+    // when
+    deque.addLast(null);
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void cannotRemoveFirstIfEmpty() {
+    // given -- deque initialized
+
+    // when
+    deque.removeFirst();
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void cannotRemoveLastIfEmpty() {
+    // given -- deque initialized
+
+    // when
+    deque.removeLast();
+  }
+
+  @Test
+  public void dequeIsNotEmptyIfItemAddedFirst() {
+    // given
+    deque.addFirst(TestData.MAKKA_PAKKA);
+
+    // then
+    verifyNotEmpty();
+    verifySize(1);
+  }
+
+  @Test
+  public void dequeIsNotEmptyIfItemAddedLast() {
+    // given
+    deque.addLast(TestData.MAKKA_PAKKA);
+
+    // then
+    verifyNotEmpty();
+    verifySize(1);
+  }
+
+  @Test
+  public void addFirst_RemoveFirst_Sequence() {
+    // given
+    deque.addFirst(TestData.MAKKA_PAKKA);
+
+    // when
+    final String item = deque.removeFirst();
+
+    // then
+    assertEquals(TestData.MAKKA_PAKKA, item);
+    verifyEmpty();
+  }
+
+  @Test
+  public void addFirst_RemoveLast_Sequence() {
+    // given
+    deque.addFirst(TestData.MAKKA_PAKKA);
+
+    // when
+    final String item = deque.removeLast();
+
+    // then
+    assertEquals(TestData.MAKKA_PAKKA, item);
+    verifyEmpty();
+  }
+
+  @Test
+  public void addLast_RemoveLast_Sequence() {
+    // given
+    deque.addLast(TestData.MAKKA_PAKKA);
+
+    // when
+    final String item = deque.removeLast();
+
+    // then
+    assertEquals(TestData.MAKKA_PAKKA, item);
+    verifyEmpty();
+  }
+
+  @Test
+  public void addLast_RemoveFirst_Sequence() {
+    // given
+    deque.addLast(TestData.MAKKA_PAKKA);
+
+    // when
+    final String item = deque.removeFirst();
+
+    // then
+    assertEquals(TestData.MAKKA_PAKKA, item);
+    verifyEmpty();
+  }
+
+  @Test
+  public void removeFirstFromMultipleItems() {
+    // given
+    deque.addLast(TestData.MAKKA_PAKKA);
+    deque.addLast(TestData.IGGLE_PIGGLE);
+    deque.addLast(TestData.UPSY_DAISY);
+
+    // when
+    final String item = deque.removeFirst();
+
+    // then
+    assertEquals(TestData.MAKKA_PAKKA, item);
+    verifyNotEmpty();
+    verifySize(2);
+  }
+
+  @Test
+  public void removeLastFromMultipleItems() {
+    // given
+    deque.addLast(TestData.MAKKA_PAKKA);
+    deque.addLast(TestData.IGGLE_PIGGLE);
+    deque.addLast(TestData.UPSY_DAISY);
+
+    // when
+    final String item = deque.removeLast();
+
+    // then
+    assertEquals(TestData.UPSY_DAISY, item);
+    verifyNotEmpty();
+    verifySize(2);
+  }
+
+  @Test
+  public void testIteratorViaForLoop() {
+    // given
+    deque.addFirst(TestData.MAKKA_PAKKA);
+    deque.addFirst(TestData.UPSY_DAISY);
+    deque.addFirst(TestData.IGGLE_PIGGLE);
+
+    // when
+    final List<String> results = new ArrayList<>();
+
+    for (String item : deque) {
+      results.add(item);
+    }
+
+    // then
+    ASSERT.that(results)
+        .containsExactly(TestData.IGGLE_PIGGLE, TestData.UPSY_DAISY, TestData.MAKKA_PAKKA)
+        .inOrder();
+  }
+
+  @Test
+  public void testIterator() {
+    // given
+    deque.addFirst(TestData.MAKKA_PAKKA);
+    deque.addLast(TestData.UPSY_DAISY);
+    deque.addFirst(TestData.IGGLE_PIGGLE);
+    deque.addLast(TestData.TOMBLIBOOS);
+
+    // when
+    final List<String> results = new ArrayList<>();
+
+    for (Iterator<String> iterator = deque.iterator(); iterator.hasNext();) {
+      results.add(iterator.next());
+    }
+
+    // then
+    ASSERT
+        .that(results)
+        .containsExactly(TestData.IGGLE_PIGGLE, TestData.MAKKA_PAKKA, TestData.UPSY_DAISY,
+            TestData.TOMBLIBOOS).inOrder();
+  }
+
+  @Test(expected = ConcurrentModificationException.class)
+  public void concurrentModificationIsDetected() {
+    // given
+    deque.addFirst(TestData.MAKKA_PAKKA);
+    deque.addFirst(TestData.UPSY_DAISY);
+
+    // when
+    for (String item : deque) {
+      deque.addFirst(item);
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void removeNotAllowedThroughIterator() {
+    // given
+    deque.addFirst(TestData.MAKKA_PAKKA);
+
+    // when
+    for (Iterator<String> iterator = deque.iterator(); iterator.hasNext();) {
+      iterator.remove();
+    }
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void fetchNextNotAllowedThroughEmptyIterator() {
+    // given
+
+    // when
+    final Iterator<String> iterator = deque.iterator();
+
+    // then
+    iterator.next();
+  }
+
+  @Test
+  public void getFollowsOrderAfterWrapAround() {
+    // given -- the front wraps around the start of the array
+    deque.addLast(TestData.MAKKA_PAKKA);
+    deque.addLast(TestData.UPSY_DAISY);
+    deque.addFirst(TestData.IGGLE_PIGGLE);
+    deque.addFirst(TestData.TOMBLIBOOS);
+
+    // then
+    assertEquals(TestData.TOMBLIBOOS, deque.get(0));
+    assertEquals(TestData.IGGLE_PIGGLE, deque.get(1));
+    assertEquals(TestData.MAKKA_PAKKA, deque.get(2));
+    assertEquals(TestData.UPSY_DAISY, deque.get(3));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void cannotGetBeyondLastItem() {
+    // given
+    deque.addFirst(TestData.MAKKA_PAKKA);
+
+    // when
+    deque.get(1);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void cannotGetNegativeIndex() {
+    // given
+    deque.addFirst(TestData.MAKKA_PAKKA);
+
+    // when
+    deque.get(-1);
+  }
+
+  @Test
+  public void toArrayKeepsOrderAfterWrapAround() {
+    // given
+    deque.addLast(TestData.MAKKA_PAKKA);
+    deque.addFirst(TestData.IGGLE_PIGGLE);
+    deque.addLast(TestData.UPSY_DAISY);
+
+    // when
+    final Object[] items = deque.toArray();
+    final String[] typedItems = deque.toArray(new String[0]);
+
+    // then
+    final String[] expected = {TestData.IGGLE_PIGGLE, TestData.MAKKA_PAKKA, TestData.UPSY_DAISY};
+    assertArrayEquals(expected, items);
+    assertArrayEquals(expected, typedItems);
+  }
+
+  @Test
+  public void toArrayFillsLargeEnoughArray() {
+    // given
+    deque.addLast(TestData.MAKKA_PAKKA);
+    final String[] array = {TestData.UPSY_DAISY, TestData.UPSY_DAISY, TestData.UPSY_DAISY};
+
+    // when
+    final String[] result = deque.toArray(array);
+
+    // then
+    assertSame(array, result);
+    assertEquals(TestData.MAKKA_PAKKA, result[0]);
+    assertNull(result[1]);
+  }
+
+  @Test
+  public void addAllAppendsInOrder() {
+    // given
+    deque.addFirst(TestData.MAKKA_PAKKA);
+
+    // when
+    deque.addAll(new String[] {TestData.UPSY_DAISY, TestData.IGGLE_PIGGLE});
+
+    // then
+    ASSERT.that(deque)
+        .containsExactly(TestData.MAKKA_PAKKA, TestData.UPSY_DAISY, TestData.IGGLE_PIGGLE)
+        .inOrder();
+  }
+
+  @Test
+  public void addAllWithNullItemAddsNothing() {
+    // given
+    deque.addFirst(TestData.MAKKA_PAKKA);
+
+    // when
+    try {
+      deque.addAll(new String[] {TestData.UPSY_DAISY, null});
+    } catch (NullPointerException e) {
+      // expected
+    }
+
+    // then
+    verifySize(1);
+  }
+
+  @Test
+  public void addAllOfWrappedDeque() {
+    // given
+    final ResizingArrayDeque<String> other = new ResizingArrayDeque<>();
+    other.addLast(TestData.UPSY_DAISY);
+    other.addFirst(TestData.IGGLE_PIGGLE);
+    deque.addFirst(TestData.MAKKA_PAKKA);
+
+    // when
+    deque.addAll(other);
+    deque.addAll(deque);
+
+    // then
+    ASSERT.that(deque)
+        .containsExactly(TestData.MAKKA_PAKKA, TestData.IGGLE_PIGGLE, TestData.UPSY_DAISY,
+            TestData.MAKKA_PAKKA, TestData.IGGLE_PIGGLE, TestData.UPSY_DAISY).inOrder();
+  }
+
+  @Test
+  public void loadTestGrowAndShrink() {
+    // given -- a reference deque
+    final ArrayDeque<String> expected = new ArrayDeque<>();
+
+    // when
+    for (int i = 0; i < LOAD_TEST_ITEM_COUNT; i++) {
+      final String item = String.valueOf(i);
+      switch (StdRandom.uniform(5)) {
+        case 0:
+          deque.addFirst(item);
+          expected.addFirst(item);
+          break;
+        case 1:
+          deque.addLast(item);
+          expected.addLast(item);
+          break;
+        case 2:
+          if (!expected.isEmpty()) {
+            assertEquals(expected.removeFirst(), deque.removeFirst());
+          }
+          break;
+        case 3:
+          if (!expected.isEmpty()) {
+            assertEquals(expected.removeLast(), deque.removeLast());
+          }
+          break;
+        default:
+          if (i % 1000 == 0) {
+            while (!expected.isEmpty()) {
+              assertEquals(expected.removeLast(), deque.removeLast());
+            }
+          }
+      }
+    }
+
+    // then
+    verifySize(expected.size());
+    assertArrayEquals(expected.toArray(), deque.toArray());
+  }
+
+  private void verifyEmpty() {
+    assertTrue("Deque must be empty", deque.isEmpty());
+    verifySize(0);
+  }
+
+  private void verifyNotEmpty() {
+    assertFalse("Deque should not be empty", deque.isEmpty());
+  }
+
+  private void verifySize(final int expectedSize) {
+    assertEquals("Size must be different", expectedSize, deque.size());
+  }
+
+}
@@ -0,0 +1,235 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link WorkStealingDeque}.
+ */
+public class WorkStealingDequeTest {
+
+  private static final int LOAD_TEST_ITEM_COUNT = 200_000;
+  private static final int THIEF_COUNT = 3;
+
+  // unit under test
+  private WorkStealingDeque<Integer> deque;
+
+  @Before
+  public void setUpDeque() {
+    deque = new WorkStealingDeque<>();
+  }
+
+  @Test
+  public void dequeIsEmptyAfterCreation() {
+    // given -- deque initialized
+
+    // then
+    verifyEmpty();
+  }
+
+  @Test
+  public void popReturnsNullIfEmpty() {
+    // given -- deque initialized
+
+    // then
+    assertNull(deque.pop());
+    verifyEmpty();
+  }
+
+  @Test
+  public void stealReturnsNullIfEmpty() {
+    // given -- deque initialized
+
+    // then
+    assertNull(deque.steal());
+    verifyEmpty();
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void cannotPushNull() {
+    // given -- deque initialized
+
+    // when
+    deque.push(null);
+  }
+
+  @Test
+  public void popReturnsLastPushed() {
+    // given
+    deque.push(1);
+    deque.push(2);
+
+    // then
+    assertEquals(Integer.valueOf(2), deque.pop());
+    assertEquals(Integer.valueOf(1), deque.pop());
+    verifyEmpty();
+  }
+
+  @Test
+  public void stealReturnsFirstPushed() {
+    // given
+    deque.push(1);
+    deque.push(2);
+
+    // then
+    assertEquals(Integer.valueOf(1), deque.steal());
+    assertEquals(Integer.valueOf(2), deque.steal());
+    verifyEmpty();
+  }
+
+  @Test
+  public void growKeepsOrderAfterWrapAround() {
+    // given -- the items wrap around the end of the initial array
+    for (int i = 0; i < 20; i++) {
+      deque.push(i);
+    }
+    for (int i = 0; i < 20; i++) {
+      deque.steal();
+    }
+
+    // when
+    for (int i = 0; i < 100; i++) {
+      deque.push(i);
+    }
+
+    // then
+    verifySize(100);
+    assertEquals(Integer.valueOf(0), deque.steal());
+    assertEquals(Integer.valueOf(99), deque.pop());
+    verifySize(98);
+  }
+
+  @Test
+  public void iteratorReturnsItemsFromTopToBottom() {
+    // given
+    deque.push(1);
+    deque.push(2);
+    deque.push(3);
+
+    // when
+    final Iterator<Integer> iterator = deque.iterator();
+
+    // then
+    assertEquals(Integer.valueOf(1), iterator.next());
+    assertEquals(Integer.valueOf(2), iterator.next());
+    assertEquals(Integer.valueOf(3), iterator.next());
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void iteratorToleratesModification() {
+    // given
+    for (int i = 0; i < 10; i++) {
+      deque.push(i);
+    }
+    final Iterator<Integer> iterator = deque.iterator();
+    iterator.next();
+
+    // when
+    deque.steal();
+    deque.steal();
+    deque.pop();
+    deque.push(10);
+
+    // then -- no exception is thrown, and the items still come from the top to the bottom
+    int previous = 0;
+    int count = 0;
+    while (iterator.hasNext()) {
+      final int item = iterator.next();
+      assertTrue("Items must be in pushing order", item > previous);
+      previous = item;
+      ++count;
+    }
+    assertTrue(count <= 9);
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void fetchNextNotAllowedThroughEmptyIterator() {
+    // given -- deque initialized
+
+    // when
+    deque.iterator().next();
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void removeNotAllowedThroughIterator() {
+    // given
+    deque.push(1);
+
+    // when
+    deque.iterator().remove();
+  }
+
+  @Test
+  public void loadTestEveryItemIsTakenOnce() throws InterruptedException {
+    // given -- thieves stealing while the owner pushes and pops
+    final AtomicIntegerArray taken = new AtomicIntegerArray(LOAD_TEST_ITEM_COUNT);
+    final AtomicBoolean done = new AtomicBoolean();
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Thread> thieves = new ArrayList<>();
+    for (int i = 0; i < THIEF_COUNT; i++) {
+      final Thread thief = new Thread(() -> {
+        awaitQuietly(start);
+        while (!done.get() || !deque.isEmpty()) {
+          final Integer item = deque.steal();
+          if (item != null) {
+            taken.incrementAndGet(item);
+          }
+        }
+      });
+      thief.start();
+      thieves.add(thief);
+    }
+
+    // when
+    start.countDown();
+    for (int i = 0; i < LOAD_TEST_ITEM_COUNT; i++) {
+      deque.push(i);
+      if (i % 3 == 0) {
+        final Integer item = deque.pop();
+        if (item != null) {
+          taken.incrementAndGet(item);
+        }
+      }
+    }
+    done.set(true);
+    for (final Thread thief : thieves) {
+      thief.join();
+    }
+
+    // then
+    verifyEmpty();
+    for (int i = 0; i < LOAD_TEST_ITEM_COUNT; i++) {
+      assertEquals("Item " + i + " must be taken exactly once", 1, taken.get(i));
+    }
+  }
+
+  private static void awaitQuietly(final CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void verifyEmpty() {
+    assertTrue("Deque must be empty", deque.isEmpty());
+    verifySize(0);
+  }
+
+  private void verifySize(final int expectedSize) {
+    assertEquals("Size must be different", expectedSize, deque.size());
+  }
+
+}